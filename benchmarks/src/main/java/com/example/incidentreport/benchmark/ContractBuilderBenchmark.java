@@ -0,0 +1,56 @@
+package com.example.incidentreport.benchmark;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builders run once per listed incident or user, the fields are read from state so they are not constant folded
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContractBuilderBenchmark {
+
+    private Long id = 42L;
+    private String title = "Machine allocation";
+    private String status = "Assigned";
+    private String userName = "jdoe";
+    private String firstName = "John";
+    private String lastName = "Doe";
+
+    @Benchmark
+    public IncidentReport buildIncidentReport() {
+        return new IncidentReport.Builder()
+                .incidentId(id)
+                .title(title)
+                .status(status)
+                .creator(userName)
+                .assignee(userName)
+                .version(id)
+                .build();
+    }
+
+    @Benchmark
+    public User buildUser() {
+        return new User.Builder()
+                .userId(id)
+                .userName(userName)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.incidentreport.benchmark;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.model.IncidentSummary;
+import com.example.incidentreport.repository.IncidentRepository;
+import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.service.ChangeTracker;
+import com.example.incidentreport.service.IncidentPageCache;
+import com.example.incidentreport.service.IncidentService;
+import com.example.incidentreport.service.IncidentServiceImpl;
+import com.example.incidentreport.service.TitleFilter;
+import com.example.incidentreport.service.UserNameCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a page of incident summaries to reports by IncidentServiceImpl.getIncidents, the repository returns a
+ * prepared page so only the service side of the listing is measured. Unpaged requests bypass IncidentPageCache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncidentListingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private IncidentService incidentService;
+
+    @Setup
+    public void setup() {
+        List<IncidentSummary> summaries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            IncidentStatus status = IncidentStatus.values()[i % IncidentStatus.values().length];
+            summaries.add(new IncidentSummary((long) i, "Incident " + i, status.getValue(), "creator" + i % 50,
+                    status == IncidentStatus.NEW ? null : "assignee" + i % 50, 0L));
+        }
+        Page<IncidentSummary> page = new PageImpl<>(summaries, PageRequest.of(0, pageSize), 100_000L);
+
+        IncidentRepository incidentRepository = (IncidentRepository) Proxy.newProxyInstance(
+                IncidentRepository.class.getClassLoader(), new Class<?>[]{IncidentRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("findIncidentSummaries")) {
+                        return page;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        //Unpaged listings bypass the page cache, the change counters are not read
+        ChangeTracker changeTracker = new ChangeTracker(new JdbcTemplate(), Duration.ofSeconds(1));
+        incidentService = new IncidentServiceImpl(incidentRepository, userRepository,
+                new UserNameCache(new ConcurrentMapCacheManager(), userRepository),
+                new IncidentPageCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry(),
+                        changeTracker), changeTracker, new TitleFilter(1000, 0.01));
+    }
+
+    @Benchmark
+    public Page<IncidentReport> getIncidents() {
+        return incidentService.getIncidents(null, Pageable.unpaged());
+    }
+
+    @Benchmark
+    public Page<IncidentReport> getIncidentsByStatus() {
+        return incidentService.getIncidents(IncidentStatus.ASSIGNED.getName(), Pageable.unpaged());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.incidentreport.benchmark;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson writing of GET /incidents pages and reading of incident reports, with the ObjectMapper defaults Spring MVC
+ * uses. Writers and readers are prepared once as in the message converters
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncidentReportJsonBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private Page<IncidentReport> page;
+    private byte[] reportJson;
+    private byte[] reportsJson;
+    private ObjectWriter pageWriter;
+    private ObjectReader reportReader;
+    private ObjectReader reportsReader;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<IncidentReport> reports = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            reports.add(new IncidentReport.Builder().incidentId((long) i).title("Incident " + i).status("Assigned")
+                    .creator("creator" + i % 50).assignee("assignee" + i % 50).version(0L).build());
+        }
+        page = new PageImpl<>(reports, PageRequest.of(0, pageSize), 100_000L);
+        pageWriter = objectMapper.writerFor(Page.class);
+        reportReader = objectMapper.readerFor(IncidentReport.class);
+        reportsReader = objectMapper.readerForListOf(IncidentReport.class);
+        reportJson = objectMapper.writeValueAsBytes(reports.get(0));
+        reportsJson = objectMapper.writeValueAsBytes(reports);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public IncidentReport readReport() throws IOException {
+        return reportReader.readValue(reportJson);
+    }
+
+    @Benchmark
+    public List<IncidentReport> readReports() throws IOException {
+        return reportsReader.readValue(reportsJson);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.incidentreport.benchmark;
+
+import com.example.incidentreport.model.IncidentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status lookups run for every listed incident and every status filter. Names and ids are parameters of separate
+ * states, so each lookup only runs for its own parameter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncidentStatusBenchmark {
+
+    @State(Scope.Thread)
+    public static class ByName {
+        //Exact, differently cased and unknown names, the last one scans every status
+        @Param({"New", "closed", "Unknown"})
+        private String name;
+    }
+
+    @State(Scope.Thread)
+    public static class ById {
+        @Param({"1", "3"})
+        private int id;
+    }
+
+    @Benchmark
+    public IncidentStatus getIncidentStatusByName(ByName byName) {
+        return IncidentStatus.getIncidentStatusByName(byName.name);
+    }
+
+    @Benchmark
+    public IncidentStatus getIncidentStatusById(ById byId) {
+        return IncidentStatus.getIncidentStatusById(byId.id);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.incidentreport.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Read only, non blocking counterpart of the incident and user listings of IncidentReportApplication, served by
+ * WebFlux from the same database through R2DBC
+ */
+@SpringBootApplication
+public class ReactiveIncidentReportApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveIncidentReportApplication.class, args);
+    }
+
+}
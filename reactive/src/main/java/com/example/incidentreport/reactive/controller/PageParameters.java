@@ -0,0 +1,20 @@
+package com.example.incidentreport.reactive.controller;
+
+import com.example.incidentreport.utils.BadRequestException;
+
+/**
+ * Page bounds of the listings, the maximum size matches the Spring Data default of the servlet application
+ */
+final class PageParameters {
+
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private PageParameters() {}
+
+    static void validate(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException(String.format(
+                    "Page should not be negative and size should be between 1 and %d", MAX_PAGE_SIZE));
+        }
+    }
+}
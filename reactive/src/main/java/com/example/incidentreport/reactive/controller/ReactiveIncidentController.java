@@ -0,0 +1,41 @@
+package com.example.incidentreport.reactive.controller;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.reactive.repository.IncidentQueryRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static java.util.Objects.nonNull;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+@RestController
+public class ReactiveIncidentController {
+
+    private final IncidentQueryRepository incidentQueryRepository;
+
+    @Autowired
+    public ReactiveIncidentController(IncidentQueryRepository incidentQueryRepository) {
+        this.incidentQueryRepository = incidentQueryRepository;
+    }
+
+    //Same parameters as the servlet listing, the page content is returned as a JSON array or, for
+    //Accept: application/x-ndjson, one incident per line flushed as it is read
+    @GetMapping(value = "/incidents", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Retrieve incidents based on criteria like status")
+    public Flux<IncidentReport> getIncidentByStatus(@RequestParam(required = false) String status,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        PageParameters.validate(page, size);
+        IncidentStatus incidentStatus = IncidentStatus.getIncidentStatusByName(status);
+        long offset = (long) page * size;
+        return nonNull(incidentStatus) ?
+                incidentQueryRepository.findIncidentsByStatusId(incidentStatus.getValue(), size, offset) :
+                incidentQueryRepository.findIncidents(size, offset);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.incidentreport.reactive.controller;
+
+import com.example.incidentreport.contract.User;
+import com.example.incidentreport.reactive.repository.UserQueryRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+@RestController
+public class ReactiveUserController {
+
+    private final UserQueryRepository userQueryRepository;
+
+    @Autowired
+    public ReactiveUserController(UserQueryRepository userQueryRepository) {
+        this.userQueryRepository = userQueryRepository;
+    }
+
+    @GetMapping(value = "/users", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "List users page by page")
+    public Flux<User> getAllUsers(@RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        PageParameters.validate(page, size);
+        return userQueryRepository.findUsers(size, (long) page * size);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.incidentreport.reactive.repository;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.model.IncidentStatus;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Incident listing queries, rows are emitted as they are demanded by the subscriber
+ */
+@Repository
+public class IncidentQueryRepository {
+
+    private static final String SELECT_INCIDENTS = "SELECT i.incident_id, i.title, i.status_id, i.version, " +
+            "c.user_name AS creator, a.user_name AS assignee FROM incident i " +
+            "JOIN user_detail c ON c.user_id = i.user_id LEFT JOIN user_detail a ON a.user_id = i.assignee_id ";
+    private static final String EMPTY = "";
+    private static final String PAGE = "ORDER BY i.incident_id LIMIT :limit OFFSET :offset";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public IncidentQueryRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<IncidentReport> findIncidents(int limit, long offset) {
+        return databaseClient.sql(SELECT_INCIDENTS + PAGE)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(IncidentQueryRepository::getIncidentReport)
+                .all();
+    }
+
+    public Flux<IncidentReport> findIncidentsByStatusId(int statusId, int limit, long offset) {
+        return databaseClient.sql(SELECT_INCIDENTS + "WHERE i.status_id = :statusId " + PAGE)
+                .bind("statusId", statusId)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(IncidentQueryRepository::getIncidentReport)
+                .all();
+    }
+
+    //Same mapping as IncidentServiceImpl of the servlet application
+    private static IncidentReport getIncidentReport(Row row) {
+        Integer statusId = row.get("status_id", Integer.class);
+        IncidentStatus incidentStatus = isNull(statusId) ? null : IncidentStatus.getIncidentStatusById(statusId);
+        String assignee = row.get("assignee", String.class);
+        return new IncidentReport.Builder()
+                .incidentId(row.get("incident_id", Long.class))
+                .title(row.get("title", String.class))
+                .creator(row.get("creator", String.class))
+                .assignee(nonNull(assignee) ? assignee : EMPTY)
+                .status(nonNull(incidentStatus) ? incidentStatus.getName() : EMPTY)
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
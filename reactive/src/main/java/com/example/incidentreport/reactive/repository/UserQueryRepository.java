@@ -0,0 +1,40 @@
+package com.example.incidentreport.reactive.repository;
+
+import com.example.incidentreport.contract.User;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * User listing queries, rows are emitted as they are demanded by the subscriber
+ */
+@Repository
+public class UserQueryRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public UserQueryRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<User> findUsers(int limit, long offset) {
+        return databaseClient.sql("SELECT user_id, user_name, first_name, last_name FROM user_detail " +
+                        "ORDER BY user_id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(UserQueryRepository::getUser)
+                .all();
+    }
+
+    private static User getUser(Row row) {
+        return new User.Builder()
+                .userId(row.get("user_id", Long.class))
+                .userName(row.get("user_name", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .build();
+    }
+}
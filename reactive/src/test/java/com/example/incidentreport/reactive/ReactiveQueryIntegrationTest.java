@@ -0,0 +1,119 @@
+package com.example.incidentreport.reactive;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.User;
+import com.example.incidentreport.model.IncidentStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.hamcrest.Matchers.is;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {ReactiveIncidentReportApplication.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.r2dbc.url=r2dbc:h2:mem:///incident;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "spring.r2dbc.username=sa", "spring.r2dbc.password=", "spring.sql.init.mode=always"})
+public class ReactiveQueryIntegrationTest {
+
+    static final String CREATOR = "test";
+    static final String ASSIGNEE = "test1";
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Before
+    public void createIncidents() {
+        insertIncidents(databaseClient, 3);
+    }
+
+    //Inserts the creator and assignee and the given number of incidents, the first one assigned to the assignee
+    static void insertIncidents(DatabaseClient databaseClient, int incidentCount) {
+        execute(databaseClient, "INSERT INTO user_detail (user_id, user_name, first_name, last_name) VALUES " +
+                "(1, '" + CREATOR + "', 'first', 'last'), (2, '" + ASSIGNEE + "', 'first1', 'last1')");
+        execute(databaseClient, "INSERT INTO incident (incident_id, status_id, title, assignee_id, user_id) " +
+                "VALUES (1, " + IncidentStatus.ASSIGNED.getValue() + ", 'title-1', 2, 1)");
+        for (int i = 2; i <= incidentCount; i++) {
+            execute(databaseClient, "INSERT INTO incident (incident_id, status_id, title, user_id) VALUES (" + i +
+                    ", " + IncidentStatus.NEW.getValue() + ", 'title-" + i + "', 1)");
+        }
+    }
+
+    static void deleteIncidents(DatabaseClient databaseClient) {
+        execute(databaseClient, "DELETE FROM incident");
+        execute(databaseClient, "DELETE FROM user_detail");
+    }
+
+    private static void execute(DatabaseClient databaseClient, String sql) {
+        databaseClient.sql(sql).fetch().rowsUpdated().block();
+    }
+
+    @Test
+    public void givenStatus_whenGetRequest_thenIncidentsOfStatusWithUserNames() {
+        webTestClient.get().uri("/incidents?status=assigned")
+                //When
+                .exchange()
+                //Then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].title").isEqualTo("title-1")
+                .jsonPath("$[0].creator").isEqualTo(CREATOR)
+                .jsonPath("$[0].assignee").isEqualTo(ASSIGNEE)
+                .jsonPath("$[0].status").isEqualTo(IncidentStatus.ASSIGNED.getName());
+    }
+
+    @Test
+    public void givenIncidents_whenNdjsonRequest_thenIncidentsEmittedOnDemand() {
+        Flux<IncidentReport> incidents = webTestClient.get().uri("/incidents?page=0&size=3")
+                .accept(MediaType.APPLICATION_NDJSON)
+                //When
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(IncidentReport.class).getResponseBody();
+
+        //Then
+        StepVerifier.create(incidents, 1)
+                .expectNextMatches(incident -> incident.getIncidentId() == 1L)
+                .thenRequest(2)
+                .expectNextMatches(incident -> incident.getIncidentId() == 2L)
+                .expectNextMatches(incident -> incident.getIncidentId() == 3L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void givenUsers_whenGetSecondPage_thenRemainingUsersReturned() {
+        webTestClient.get().uri("/users?page=1&size=1")
+                //When
+                .exchange()
+                //Then
+                .expectStatus().isOk()
+                .expectBodyList(User.class).hasSize(1)
+                .value(users -> users.get(0).getUserName(), is(ASSIGNEE));
+    }
+
+    @Test
+    public void givenTooLargeSize_whenGetRequest_thenBadRequest() {
+        webTestClient.get().uri("/incidents?size=5000")
+                //When
+                .exchange()
+                //Then
+                .expectStatus().isBadRequest();
+    }
+
+    @After
+    public void cleanup() {
+        deleteIncidents(databaseClient);
+    }
+}
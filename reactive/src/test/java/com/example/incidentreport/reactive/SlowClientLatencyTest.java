@@ -0,0 +1,164 @@
+package com.example.incidentreport.reactive;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tail latency of listing requests while thousands of slow clients read large listings. Only runs with -Dperf=true,
+ * -Dperf.baseUrl=http://localhost:8080 runs the same load against the servlet application for comparison. The
+ * incidents are then created and deleted through the API of the servlet application, so they land in its database
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {ReactiveIncidentReportApplication.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.r2dbc.url=r2dbc:h2:mem:///incident;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "spring.r2dbc.username=sa", "spring.r2dbc.password=", "spring.sql.init.mode=always"})
+public class SlowClientLatencyTest {
+
+    private static final int SLOW_CLIENTS = 2000;
+    private static final int PROBES = 500;
+    private static final int INCIDENTS = 1000;
+    private static final Duration SLOW_READ_DELAY = Duration.ofMillis(20);
+    private static final String SERVLET_BASE_URL = System.getProperty("perf.baseUrl");
+    private static final String SEED_USER = "slowclientlatency";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final List<Long> seededIncidentIds = new ArrayList<>();
+
+    @BeforeClass
+    public static void perfOnly() {
+        Assume.assumeTrue("Load tests run with -Dperf=true", Boolean.getBoolean("perf"));
+    }
+
+    @Before
+    public void createIncidents() {
+        if (isNull(SERVLET_BASE_URL)) {
+            ReactiveQueryIntegrationTest.insertIncidents(databaseClient, INCIDENTS);
+            return;
+        }
+        WebClient servlet = WebClient.create(SERVLET_BASE_URL);
+        servlet.post().uri("/user")
+                .bodyValue(new User.Builder().userName(SEED_USER).firstName("slow").lastName("client").build())
+                .retrieve().toBodilessEntity().block();
+        List<IncidentReport> incidentReports = new ArrayList<>();
+        for (int i = 0; i < INCIDENTS; i++) {
+            incidentReports.add(new IncidentReport.Builder().title(SEED_USER + "-" + i).creator(SEED_USER).build());
+        }
+        JsonNode results = servlet.post().uri("/incidents/bulk").bodyValue(incidentReports)
+                .retrieve().bodyToMono(JsonNode.class).block();
+        for (JsonNode result : results) {
+            if (result.path("status").asInt() == HttpStatus.CREATED.value()) {
+                seededIncidentIds.add(result.path("incidentId").asLong());
+            }
+        }
+        assertEquals("Incidents created in " + SERVLET_BASE_URL, INCIDENTS, seededIncidentIds.size());
+    }
+
+    @Test
+    public void givenSlowClients_whenListing_thenProbeLatencyReported() throws Exception {
+        String baseUrl = nonNull(SERVLET_BASE_URL) ? SERVLET_BASE_URL : "http://localhost:" + port;
+        //Every slow client gets a connection of its own, probes do not queue behind them for a pooled connection or
+        //an event loop
+        ConnectionProvider slowClientConnections = ConnectionProvider.builder("slow-clients")
+                .maxConnections(SLOW_CLIENTS).build();
+        ConnectionProvider probeConnections = ConnectionProvider.builder("probes").maxConnections(16).build();
+        LoopResources probeLoops = LoopResources.create("probes", 1, true);
+        WebClient slowClient = webClient(baseUrl, HttpClient.create(slowClientConnections));
+        WebClient probeClient = webClient(baseUrl, HttpClient.create(probeConnections).runOn(probeLoops));
+        AtomicInteger slowClientErrors = new AtomicInteger();
+
+        try {
+            //Slow clients read a page of 1000 incidents buffer by buffer, holding the response open
+            CompletableFuture<Void> slowClients = Flux.range(0, SLOW_CLIENTS)
+                    .flatMap(i -> slowClient.get().uri("/incidents?size=" + INCIDENTS).retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .delayElements(SLOW_READ_DELAY)
+                            .doOnNext(DataBufferUtils::release)
+                            .then()
+                            .doOnError(e -> slowClientErrors.incrementAndGet())
+                            .onErrorResume(e -> Mono.empty()), SLOW_CLIENTS)
+                    .then()
+                    .toFuture();
+
+            List<Long> latencies = Flux.range(0, PROBES)
+                    .delayElements(Duration.ofMillis(10))
+                    .flatMap(i -> {
+                        long start = System.nanoTime();
+                        return probeClient.get().uri("/incidents?size=20").retrieve().toBodilessEntity()
+                                .map(response -> (System.nanoTime() - start) / 1_000_000);
+                    })
+                    .collectList()
+                    .block(Duration.ofMinutes(5));
+            slowClients.get(5, TimeUnit.MINUTES);
+
+            //Failed slow clients would leave the probes with less load than reported
+            assertEquals("Failed slow client requests", 0, slowClientErrors.get());
+            assertEquals(PROBES, latencies.size());
+            Long[] sorted = latencies.toArray(new Long[0]);
+            Arrays.sort(sorted);
+            System.out.printf("%s with %d slow clients: p50 %d ms, p99 %d ms, max %d ms%n", baseUrl, SLOW_CLIENTS,
+                    sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1]);
+        } finally {
+            slowClientConnections.dispose();
+            probeConnections.dispose();
+            probeLoops.dispose();
+        }
+    }
+
+    private static WebClient webClient(String baseUrl, HttpClient httpClient) {
+        return WebClient.builder().baseUrl(baseUrl).clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    @After
+    public void cleanup() {
+        if (isNull(SERVLET_BASE_URL)) {
+            ReactiveQueryIntegrationTest.deleteIncidents(databaseClient);
+            return;
+        }
+        WebClient servlet = WebClient.create(SERVLET_BASE_URL);
+        Flux.fromIterable(seededIncidentIds)
+                .flatMap(incidentId -> servlet.delete()
+                        .uri("/incident?incident_id={incidentId}&loggedin_user={user}", incidentId, SEED_USER)
+                        .retrieve().toBodilessEntity(), 16)
+                .then(servlet.delete().uri("/user/{userName}", SEED_USER).retrieve().toBodilessEntity())
+                .block(Duration.ofMinutes(5));
+    }
+}
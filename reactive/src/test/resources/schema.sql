@@ -0,0 +1,20 @@
+-- Tables read by the reactive queries, as created by the Flyway migrations of the servlet application
+CREATE TABLE user_detail (
+    user_id    BIGINT NOT NULL,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    user_name  VARCHAR(255) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE incident (
+    incident_id BIGINT NOT NULL,
+    status_id   INTEGER,
+    title       VARCHAR(255),
+    assignee_id BIGINT,
+    user_id     BIGINT,
+    version     BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (incident_id),
+    CONSTRAINT fk_incident_assignee FOREIGN KEY (assignee_id) REFERENCES user_detail (user_id),
+    CONSTRAINT fk_incident_creator FOREIGN KEY (user_id) REFERENCES user_detail (user_id)
+);
@@ -0,0 +1,115 @@
+package com.example.incidentreport.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Opt-in execution mode for JDK 8, incidentreport.execution.mode=async. Handlers of the REST controllers run on a
+ * bounded executor and answer with a CompletableFuture, so the Tomcat worker is released while the handler waits on
+ * JDBC. Requests beyond the queue of the executor are answered 503. Handlers streaming their response keep the async
+ * support of Spring MVC, and like theirs the statements of offloaded handlers are not counted per request
+ */
+@Configuration
+@ConditionalOnProperty(name = "incidentreport.execution.mode", havingValue = "async")
+public class AsyncExecutionConfig implements WebMvcRegistrations, DisposableBean {
+
+    private static final List<Class<?>> ASYNC_RETURN_TYPES = Arrays.asList(StreamingResponseBody.class,
+            ResponseBodyEmitter.class, Callable.class, DeferredResult.class, CompletionStage.class);
+
+    //Not a bean, an Executor bean would replace the applicationTaskExecutor of the streamed responses
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public AsyncExecutionConfig(@Value("${incidentreport.execution.async.threads:50}") int threads,
+                                @Value("${incidentreport.execution.async.queue-capacity:5000}") int queueCapacity) {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("request-");
+        executor.initialize();
+    }
+
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new RequestMappingHandlerAdapter() {
+            @Override
+            protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+                return isBlocking(handlerMethod) ? new OffloadedHandlerMethod(handlerMethod, executor) :
+                        super.createInvocableHandlerMethod(handlerMethod);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    //Handlers of the REST controllers that do not return an async or streamed response themselves
+    private static boolean isBlocking(HandlerMethod handlerMethod) {
+        if (!AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), RestController.class)) {
+            return false;
+        }
+        ResolvableType returnType = ResolvableType.forMethodParameter(handlerMethod.getReturnType());
+        Class<?> bodyType = ResponseEntity.class.isAssignableFrom(returnType.toClass()) ?
+                returnType.getGeneric().toClass() : returnType.toClass();
+        for (Class<?> asyncType : ASYNC_RETURN_TYPES) {
+            if (asyncType.isAssignableFrom(bodyType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Invokes the handler on the executor once its arguments are resolved. Spring MVC completes the request with the
+    //value of the returned future, or handles its exception like one thrown by the handler
+    private static final class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+
+        private final Executor executor;
+
+        private OffloadedHandlerMethod(HandlerMethod handlerMethod, Executor executor) {
+            super(handlerMethod);
+            this.executor = executor;
+        }
+
+        //A full queue throws TaskRejectedException here, before the request turns async
+        @Override
+        protected Object doInvoke(Object... args) {
+            //The service layer reads the mapped request pattern, see ServiceLatencyInterceptor
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            return CompletableFuture.supplyAsync(() -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    return super.doInvoke(args);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }, executor);
+        }
+    }
+}
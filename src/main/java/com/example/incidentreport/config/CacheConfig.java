@@ -0,0 +1,17 @@
+package com.example.incidentreport.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Spring cache abstraction. Caches are Caffeine caches configured by the spring.cache properties, their
+ * hit and miss counts are published as cache.gets metrics
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    //User contracts by lower cased user name, see UserNameCache. user_name is compared case insensitively by its
+    //collation
+    public static final String USERS_BY_NAME = "usersByName";
+}
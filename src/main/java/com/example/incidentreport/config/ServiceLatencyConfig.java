@@ -0,0 +1,33 @@
+package com.example.incidentreport.config;
+
+import com.example.incidentreport.service.IncidentServiceImpl;
+import com.example.incidentreport.service.OperationLatencies;
+import com.example.incidentreport.service.SlowRequestLog;
+import com.example.incidentreport.service.UserServiceImpl;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Advises the incident and user services with ServiceLatencyInterceptor. The advice is added to the existing
+ * transaction and cache proxies and reuses their method invocation, and runs outermost so commits are timed too
+ */
+@Configuration
+public class ServiceLatencyConfig {
+
+    @Bean
+    public static Advisor serviceLatencyAdvisor(ObjectProvider<OperationLatencies> operationLatencies,
+                                                ObjectProvider<SlowRequestLog> slowRequestLog) {
+        ComposablePointcut services = new ComposablePointcut(new RootClassFilter(IncidentServiceImpl.class))
+                .union(new RootClassFilter(UserServiceImpl.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(services, new ServiceLatencyInterceptor(
+                operationLatencies.getObject(), slowRequestLog.getObject()));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.incidentreport.config;
+
+import com.example.incidentreport.service.OperationLatencies;
+import com.example.incidentreport.service.SlowRequest;
+import com.example.incidentreport.service.SlowRequestLog;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Times service calls into OperationLatencies. Calls slower than the threshold of SlowRequestLog are captured with
+ * their request mapping, parameter types and SQL statements, which is the only place this interceptor allocates.
+ * Request bodies, user names and other parameter values are never captured
+ */
+public class ServiceLatencyInterceptor implements MethodInterceptor {
+
+    private final OperationLatencies operationLatencies;
+    private final SlowRequestLog slowRequestLog;
+
+    public ServiceLatencyInterceptor(OperationLatencies operationLatencies, SlowRequestLog slowRequestLog) {
+        this.operationLatencies = operationLatencies;
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        int statementsBefore = nonNull(counts) ? counts.getStatements() : 0;
+        long jdbcNanosBefore = nonNull(counts) ? counts.getJdbcNanos() : 0;
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            operationLatencies.record(invocation.getMethod(), invocation.getArguments(), nanos);
+            if (slowRequestLog.isSlow(nanos)) {
+                slowRequestLog.add(new SlowRequest(Instant.now().minusNanos(nanos), currentRequest(),
+                        invocation.getMethod().getDeclaringClass().getSimpleName() + "." +
+                                invocation.getMethod().getName(),
+                        parameterTypes(invocation.getArguments()), Thread.currentThread().getName(), millis(nanos),
+                        nonNull(counts) ? millis(counts.getJdbcNanos() - jdbcNanosBefore) : 0,
+                        nonNull(counts) ? counts.getStatements() - statementsBefore : 0));
+            }
+        }
+    }
+
+    //Method and mapped path pattern, like GET /user/{userName}. Path variables and the query string carry user names
+    //and are left out
+    private static String currentRequest() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return isNull(pattern) ? request.getMethod() : request.getMethod() + " " + pattern;
+    }
+
+    private static List<String> parameterTypes(Object[] arguments) {
+        List<String> parameterTypes = new ArrayList<>(arguments.length);
+        for (Object argument : arguments) {
+            parameterTypes.add(isNull(argument) ? null : argument.getClass().getSimpleName());
+        }
+        return parameterTypes;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.incidentreport.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Proxies the DataSource so that SqlStatementCounter sees every executed statement, and counts the statements of
+ * each request with SqlStatementFilter
+ */
+@Configuration
+public class SqlStatementConfig {
+
+    //Static so that the post processor does not initialize this configuration early
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSource(ObjectProvider<SqlStatementCounter> sqlStatementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(sqlStatementCounter.getObject())
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementFilter> sqlStatementFilter(SqlStatementCounter sqlStatementCounter,
+                                                                         MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementFilter(sqlStatementCounter, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.incidentreport.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Counts the JDBC statements executed through the proxied DataSource, a batch counts once as it is a single round
+ * trip. Statements and JDBC time are also counted per thread between start() and close() of the returned counts,
+ * see SqlStatementFilter
+ */
+@Component
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong statements = new AtomicLong();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counts counts = CURRENT.get();
+        if (nonNull(counts)) {
+            counts.statementStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        statements.incrementAndGet();
+        Counts counts = CURRENT.get();
+        if (nonNull(counts)) {
+            counts.statements++;
+            counts.jdbcNanos += System.nanoTime() - counts.statementStart;
+        }
+    }
+
+    //Statements executed by all threads since startup
+    public long getStatementCount() {
+        return statements.get();
+    }
+
+    //Counts of the current thread, null when it is not counting
+    public static Counts current() {
+        return CURRENT.get();
+    }
+
+    public Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public static final class Counts implements AutoCloseable {
+        private int statements;
+        private long jdbcNanos;
+        private long statementStart;
+
+        private Counts() {}
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos;
+        }
+
+        @Override
+        public void close() {
+            CURRENT.remove();
+        }
+    }
+}
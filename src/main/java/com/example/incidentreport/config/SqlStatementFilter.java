@@ -0,0 +1,63 @@
+package com.example.incidentreport.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Records the SQL statements and JDBC time of each request as the http.server.requests.jdbc.statements and
+ * http.server.requests.jdbc.time metrics by method and uri pattern, and logs them at debug level. Statements of
+ * streamed response bodies run on async threads and are not counted
+ */
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatementFilter.class);
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementFilter(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Counts counts = sqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            counts.close();
+            //The pattern keeps the uri tag bounded, paths like /user/{userName} share one series
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = nonNull(pattern) ? pattern.toString() : UNKNOWN_URI;
+            DistributionSummary.builder("http.server.requests.jdbc.statements")
+                    .description("SQL statements executed per request")
+                    .tags("method", request.getMethod(), "uri", uri)
+                    .register(meterRegistry)
+                    .record(counts.getStatements());
+            Timer.builder("http.server.requests.jdbc.time")
+                    .description("Time spent in JDBC statements per request")
+                    .tags("method", request.getMethod(), "uri", uri)
+                    .register(meterRegistry)
+                    .record(counts.getJdbcNanos(), TimeUnit.NANOSECONDS);
+            LOGGER.debug("{} {}: {} SQL statements, {} ms in JDBC", request.getMethod(), request.getRequestURI(),
+                    counts.getStatements(), TimeUnit.NANOSECONDS.toMillis(counts.getJdbcNanos()));
+        }
+    }
+}
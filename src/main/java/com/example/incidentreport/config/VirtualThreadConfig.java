@@ -0,0 +1,58 @@
+package com.example.incidentreport.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Opt-in execution mode, incidentreport.execution.mode=virtual, running requests and streamed responses on virtual
+ * threads instead of the bounded Tomcat worker pool, so requests waiting on JDBC do not hold a platform thread.
+ * Virtual threads need JDK 21 or later, the code is compiled for Java 8 so they are created reflectively and older
+ * JDKs keep the worker pool. On those the async mode, see AsyncExecutionConfig, releases the worker instead
+ */
+@Configuration
+@ConditionalOnProperty(name = "incidentreport.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (nonNull(executor)) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (nonNull(executor)) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads are not available on Java {}, requests run on the Tomcat worker pool",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
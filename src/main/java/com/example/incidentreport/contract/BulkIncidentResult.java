@@ -0,0 +1,40 @@
+package com.example.incidentreport.contract;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+
+/**
+ * Per item result of a bulk incident creation, index refers to the position in the request list
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkIncidentResult implements Serializable {
+
+    private final int index;
+    private final int status;
+    private final Long incidentId;
+    private final String message;
+
+    public BulkIncidentResult(int index, int status, Long incidentId, String message) {
+        this.index = index;
+        this.status = status;
+        this.incidentId = incidentId;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Long getIncidentId() {
+        return incidentId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -16,6 +16,7 @@ public class IncidentReport implements Serializable {
     private final String status;
     private final String assignee;
     private final String creator;
+    private final Long version;
 
     public IncidentReport(Builder builder) {
         this.incidentId=builder.incidentId;
@@ -23,6 +24,7 @@ public class IncidentReport implements Serializable {
         this.status=builder.status;
         this.assignee=builder.assignee;
         this.creator=builder.creator;
+        this.version=builder.version;
     }
 
     public String getTitle() {
@@ -45,6 +47,11 @@ public class IncidentReport implements Serializable {
         return incidentId;
     }
 
+    //Send back as If-Match header to update or delete only this version of the report
+    public Long getVersion() {
+        return version;
+    }
+
     @JsonPOJOBuilder(withPrefix = "")
     public static final class Builder {
         private  String title;
@@ -53,6 +60,7 @@ public class IncidentReport implements Serializable {
         private  String creator;
 
         private Long incidentId;
+        private Long version;
 
         public Builder title(String title) {
             this.title=title;
@@ -79,6 +87,11 @@ public class IncidentReport implements Serializable {
             return this;
         }
 
+        public Builder version(Long version) {
+            this.version=version;
+            return this;
+        }
+
         public IncidentReport build() {
             return new IncidentReport(this);
         }
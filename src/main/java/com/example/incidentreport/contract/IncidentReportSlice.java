@@ -0,0 +1,30 @@
+package com.example.incidentreport.contract;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Keyset paginated incident list contract. Carries an opaque continuation token instead of page totals,
+ * the token is absent on the last slice
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IncidentReportSlice implements Serializable {
+
+    private final List<IncidentReport> content;
+    private final String nextToken;
+
+    public IncidentReportSlice(List<IncidentReport> content, String nextToken) {
+        this.content = content;
+        this.nextToken = nextToken;
+    }
+
+    public List<IncidentReport> getContent() {
+        return content;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+}
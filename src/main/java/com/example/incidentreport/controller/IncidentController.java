@@ -1,34 +1,75 @@
 package com.example.incidentreport.controller;
 
+import com.example.incidentreport.contract.BulkIncidentResult;
 import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.IncidentReportSlice;
 import com.example.incidentreport.contract.ResponseResult;
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.service.ChangeTracker;
 import com.example.incidentreport.service.IncidentService;
+import com.example.incidentreport.utils.BadRequestException;
+import com.example.incidentreport.utils.Csv;
+import com.example.incidentreport.utils.EntityTags;
+import com.example.incidentreport.utils.NdJson;
+import com.example.incidentreport.utils.PreconditionFailedException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
 public class IncidentController {
 
+    private static final String NDJSON = "ndjson";
+    private static final String CSV = "csv";
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final IncidentService incidentService;
 
+    private final ChangeTracker changeTracker;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public IncidentController(IncidentService incidentService) {
+    public IncidentController(IncidentService incidentService, ChangeTracker changeTracker,
+                              ObjectMapper objectMapper) {
         this.incidentService = incidentService;
+        this.changeTracker = changeTracker;
+        //Writing a value must not close the response stream
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
 
@@ -45,28 +86,110 @@ public class IncidentController {
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseResult("Incident Created"));
     }
 
+    @Operation(summary = "Create incident reports in bulk, returns a result per report in request order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Incidents processed, see status of each result"),
+            @ApiResponse(responseCode = "400", description = "Too many incidents in one request"),
+            @ApiResponse(responseCode = "409", description = "Concurrent request created a conflicting incident, " +
+                    "no incident of the request was created") })
+    @PostMapping(value = "/incidents/bulk", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkIncidentResult>> createIncidents(@RequestBody List<IncidentReport> incidentReports) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(incidentService.createIncidents(incidentReports));
+    }
+
+    //Answers 304 before querying when If-None-Match carries the ETag of the current incidents
     @GetMapping(value = "/incidents")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Incident list is retrieved")})
+            @ApiResponse(responseCode = "200", description = "Incident list is retrieved"),
+            @ApiResponse(responseCode = "304", description = "Incidents did not change since the ETag was sent")})
     @Operation(summary = "Retrieve all incidents based on criteria like status")
     public Page<IncidentReport> getIncidentByStatus(@RequestParam(required=false)
-                                                                        String status, Pageable pageable) {
+                                                                        String status, Pageable pageable,
+                                                    WebRequest webRequest) {
+        if (webRequest.checkNotModified(changeTracker.getIncidentsETag())) {
+            return null;
+        }
         return incidentService.getIncidents(status,pageable);
     }
 
-    //Assuming that title can contain spaces so providing update by id
+    @GetMapping(value = "/incidents/seek")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Incident slice is retrieved"),
+            @ApiResponse(responseCode = "400", description = "Invalid status, size or continuation token")})
+    @Operation(summary = "Retrieve incidents ordered by id using a continuation token instead of page offsets")
+    public IncidentReportSlice getIncidentsAfter(@RequestParam(required = false) String status,
+                                                 @RequestParam(required = false) String token,
+                                                 @RequestParam(defaultValue = "20") int size) {
+        return incidentService.getIncidentsAfter(status, token, size);
+    }
+
+    //Rows are written while they are read from the database, the export is never held in memory
+    @GetMapping(value = "/incidents/export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Incidents exported"),
+            @ApiResponse(responseCode = "400", description = "Invalid export format or status")})
+    @Operation(summary = "Export all incidents, optionally by status, as newline delimited JSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportIncidents(@RequestParam(required = false) String status,
+                                                                 @RequestParam(defaultValue = NDJSON) String format) {
+        //Checked before the 200 is sent, the service checks again when the rows are streamed
+        if (isNotEmpty(status) && isNull(IncidentStatus.getIncidentStatusByName(status))) {
+            throw new BadRequestException("Invalid Status Provided");
+        }
+        if (NDJSON.equalsIgnoreCase(format)) {
+            ObjectWriter writer = NdJson.writerFor(objectMapper, IncidentReport.class);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(outputStream ->
+                    NdJson.<IncidentReport>write(outputStream, writer,
+                            consumer -> incidentService.forEachIncident(status, consumer)));
+        }
+        if (CSV.equalsIgnoreCase(format)) {
+            return ResponseEntity.ok().contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=incidents.csv")
+                    .body(outputStream -> {
+                        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                        writer.write(Csv.row("incidentId", "title", "status", "creator", "assignee", "version"));
+                        incidentService.forEachIncident(status, incidentReport -> {
+                            try {
+                                writer.write(Csv.row(incidentReport.getIncidentId(), incidentReport.getTitle(),
+                                        incidentReport.getStatus(), incidentReport.getCreator(),
+                                        incidentReport.getAssignee(), incidentReport.getVersion()));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                        writer.flush();
+                    });
+        }
+        throw new BadRequestException("Invalid export format provided, use ndjson or csv");
+    }
+
+    //Assuming that title can contain spaces so providing update by id. If-Match is optional, when sent the update
+    //only applies to that version of the report and the ETag of the response is the version to send next
     @PatchMapping(value = "/incident", produces = APPLICATION_JSON_VALUE)
     @Operation(summary = "Update incident based on incident id and logged in user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "202", description = "Incident updated"),
             @ApiResponse(responseCode = "400", description = "Invalid user provided,invalid assignee,"
-                    + "invalid incident id, user not having the required permissions" ) })
+                    + "invalid incident id, user not having the required permissions" ),
+            @ApiResponse(responseCode = "409", description = "Assignee already has other tasks in assigned status, "
+                    + "incident modified by a concurrent request"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version") })
     public ResponseEntity<ResponseResult> updateIncidentById(@RequestParam(name = "incident_id")
                                                               Long incidentId,
              @RequestParam(name = "loggedin_user") String currentUser,
+             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                           @RequestBody IncidentReport incidentReport) {
-        incidentService.updateIncident(incidentId,currentUser, incidentReport);
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseResult("Incident Report Updated"));
+        Long expectedVersion = EntityTags.parseVersion(ifMatch);
+        Long version;
+        try {
+            version = incidentService.updateIncident(incidentId, currentUser, incidentReport, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            throw preconditionFailedIfConditional(e, expectedVersion);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.ACCEPTED);
+        if (nonNull(version)) {
+            response.eTag(EntityTags.fromVersion(version));
+        }
+        return response.body(new ResponseResult("Incident Report Updated"));
     }
 
     @DeleteMapping(value = "/incident", produces = APPLICATION_JSON_VALUE)
@@ -74,12 +197,28 @@ public class IncidentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "202", description = "Incident Deleted"),
             @ApiResponse(responseCode = "400", description = "Invalid user provided,"
-                    + "invalid incident id, user not having the required permissions" ) })
+                    + "invalid incident id, user not having the required permissions" ),
+            @ApiResponse(responseCode = "409", description = "Incident modified by a concurrent request"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version") })
     public ResponseEntity<ResponseResult> deleteIncidentById(@RequestParam(name = "incident_id")
                                                               Long incidentId,
-                                                          @RequestParam(name = "loggedin_user") String currentUser) {
-        incidentService.deleteIncident(incidentId,currentUser);
+                                                          @RequestParam(name = "loggedin_user") String currentUser,
+             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.parseVersion(ifMatch);
+        try {
+            incidentService.deleteIncident(incidentId, currentUser, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            throw preconditionFailedIfConditional(e, expectedVersion);
+        }
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseResult("Incident Report Deleted"));
     }
 
+    //The version check on flush failed. A request sent with If-Match gets 412 as for a stale version, an
+    //unconditional one is answered 409 by CustomExceptionHandler
+    private static RuntimeException preconditionFailedIfConditional(OptimisticLockingFailureException e,
+                                                                    Long expectedVersion) {
+        return nonNull(expectedVersion) ?
+                new PreconditionFailedException(PreconditionFailedException.CONCURRENT_MODIFICATION) : e;
+    }
+
 }
@@ -0,0 +1,28 @@
+package com.example.incidentreport.controller;
+
+import com.example.incidentreport.service.OperationLatencies;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.SortedMap;
+
+/**
+ * Actuator endpoint /actuator/latencies, latency percentiles of every service operation and status filter since
+ * startup
+ */
+@Component
+@Endpoint(id = "latencies")
+public class LatencyEndpoint {
+
+    private final OperationLatencies operationLatencies;
+
+    public LatencyEndpoint(OperationLatencies operationLatencies) {
+        this.operationLatencies = operationLatencies;
+    }
+
+    @ReadOperation
+    public SortedMap<String, OperationLatencies.LatencySummary> latencies() {
+        return operationLatencies.getSummaries();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.incidentreport.controller;
+
+import com.example.incidentreport.service.SlowRequest;
+import com.example.incidentreport.service.SlowRequestLog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint /actuator/slowrequests, the last slow service calls newest first
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestEndpoint {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @ReadOperation
+    public List<SlowRequest> slowRequests() {
+        return slowRequestLog.getSlowRequests();
+    }
+}
@@ -2,12 +2,21 @@ package com.example.incidentreport.controller;
 
 import com.example.incidentreport.contract.ResponseResult;
 import com.example.incidentreport.contract.User;
+import com.example.incidentreport.service.ChangeTracker;
 import com.example.incidentreport.service.UserService;
+import com.example.incidentreport.utils.NdJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,10 +25,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 
 @RestController
@@ -27,9 +37,16 @@ public class UserController {
 
     private final UserService userService;
 
+    private final ChangeTracker changeTracker;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ChangeTracker changeTracker, ObjectMapper objectMapper) {
         this.userService=userService;
+        this.changeTracker=changeTracker;
+        //Writing a value must not close the response stream
+        this.objectMapper=objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @PostMapping(value = "/user", produces = APPLICATION_JSON_VALUE)
@@ -75,11 +92,28 @@ public class UserController {
     }
 
     @GetMapping(value = "/users")
-    @Operation(summary = "List all users")
+    @Operation(summary = "List users page by page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "202", description = "User list populated")})
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
+            @ApiResponse(responseCode = "202", description = "User list populated"),
+            @ApiResponse(responseCode = "304", description = "Users did not change since the ETag was sent")})
+    public ResponseEntity<Page<User>> getAllUsers(@PageableDefault(sort = "userId") Pageable pageable,
+                                                  WebRequest webRequest) {
+        //Answers 304 before querying when If-None-Match carries the ETag of the current users
+        if (webRequest.checkNotModified(changeTracker.getUsersETag())) {
+            return null;
+        }
+        Page<User> users = userService.getAllUsers(pageable);
         return ResponseEntity.status(HttpStatus.OK).body(users);
     }
+
+    //One JSON user per line, written while the users are read so the response is never held in memory
+    @GetMapping(value = "/users/stream", produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all users as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users streamed")})
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        ObjectWriter writer = NdJson.writerFor(objectMapper, User.class);
+        StreamingResponseBody body = outputStream -> NdJson.write(outputStream, writer, userService::forEachUser);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
@@ -1,28 +1,60 @@
 package com.example.incidentreport.model;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import com.example.incidentreport.utils.TitleHash;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 /**
- * Incident entity to be persisted in MySQL DB
+ * Incident entity to be persisted in MySQL DB. The one assigned incident per assignee rule is enforced by the
+ * uk_incident_assigned_assignee unique index on a generated column, see V3 migration
  */
 @Entity
+@Table(name = "incident",
+        uniqueConstraints = @UniqueConstraint(name = "uk_incident_title_hash", columnNames = "title_hash"),
+        indexes = {@Index(name = "idx_incident_assignee_status", columnList = "assignee_id,status_id"),
+                @Index(name = "idx_incident_status", columnList = "status_id")})
+@DynamicUpdate
+@NamedEntityGraph(name = Incident.USERS_GRAPH,
+        attributeNodes = {@NamedAttributeNode("creator"), @NamedAttributeNode("assignee")})
 public class Incident {
 
+    //Fetches creator and assignee in the same select wherever incidents are mapped to reports
+    public static final String USERS_GRAPH = "Incident.users";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "incident_seq")
+    @GenericGenerator(name = "incident_seq", strategy = "com.example.incidentreport.model.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "incident_seq"))
     private Long incidentId;
     private String title;
+    //Kept in step with the title, see TitleHash
+    private byte[] titleHash;
     private Integer statusId;
 
-    @ManyToOne
+    @Version
+    private Long version;
+
+    //Lazy so that plain incident queries do not fire a user select per row, listings use an entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="assignee_id")
     private UserDetail assignee;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private UserDetail creator;
 
@@ -40,6 +72,10 @@ public class Incident {
         return statusId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public UserDetail getAssignee() {
         return assignee;
     }
@@ -48,10 +84,24 @@ public class Incident {
         return creator;
     }
 
+    public void setTitle(String title) {
+        this.title = title;
+        this.titleHash = TitleHash.of(title);
+    }
+
+    public void setStatusId(Integer statusId) {
+        this.statusId = statusId;
+    }
+
+    public void setAssignee(UserDetail assignee) {
+        this.assignee = assignee;
+    }
+
     public Incident(Builder builder) {
         this.incidentId=builder.incidentId;
         this.statusId=builder.statusId;
         this.title=builder.title;
+        this.titleHash=TitleHash.of(builder.title);
         this.assignee=builder.assignee;
         this.creator=builder.creator;
     }
@@ -0,0 +1,49 @@
+package com.example.incidentreport.model;
+
+/**
+ * Read only incident listing row, populated straight from a JPQL constructor expression so that listings
+ * neither materialize managed Incident/UserDetail entities nor keep dirty checking snapshots
+ */
+public class IncidentSummary {
+
+    private final Long incidentId;
+    private final String title;
+    private final Integer statusId;
+    private final String creator;
+    private final String assignee;
+    private final Long version;
+
+    public IncidentSummary(Long incidentId, String title, Integer statusId, String creator, String assignee,
+                           Long version) {
+        this.incidentId = incidentId;
+        this.title = title;
+        this.statusId = statusId;
+        this.creator = creator;
+        this.assignee = assignee;
+        this.version = version;
+    }
+
+    public Long getIncidentId() {
+        return incidentId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Integer getStatusId() {
+        return statusId;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
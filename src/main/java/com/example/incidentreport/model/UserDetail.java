@@ -1,18 +1,36 @@
 package com.example.incidentreport.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 /**
- * Entity class for storing user detail in MYSQL DB
+ * Entity class for storing user detail in MYSQL DB. Cached in the second level cache, so loading a user by id, like
+ * initializing a user reference, does not select the same user again
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "user_detail",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_detail_user_name", columnNames = "user_name"))
 public class UserDetail {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "user_detail_seq")
+    @GenericGenerator(name = "user_detail_seq", strategy = "com.example.incidentreport.model.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "user_detail_seq"))
     private Long userId;
 
+    @Column(nullable = false)
     private String userName;
 
     private String firstName;
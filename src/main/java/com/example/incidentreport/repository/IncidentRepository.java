@@ -1,19 +1,74 @@
 package com.example.incidentreport.repository;
 
 import com.example.incidentreport.model.Incident;
-import com.example.incidentreport.model.UserDetail;
+import com.example.incidentreport.model.IncidentSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IncidentRepository extends JpaRepository<Incident,Long> {
 
-    public List<Incident> findByAssigneeAndStatusId(UserDetail assignee, Integer statusId);
+    String SUMMARY_SELECT = "select new com.example.incidentreport.model.IncidentSummary(i.incidentId, i.title, " +
+            "i.statusId, c.userName, a.userName, i.version) from Incident i join i.creator c left join i.assignee a";
 
-    public Optional<Incident> findByTitle(String title);
+    public boolean existsByTitleHash(byte[] titleHash);
 
-    public List<Incident> findIncidentsByStatusId(int statusId);
+    @Query("select i.title from Incident i where i.titleHash in :titleHashes")
+    public List<String> findTitlesByTitleHashIn(@Param("titleHashes") Collection<byte[]> titleHashes);
 
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "-2147483648"))
+    @Query("select i.title from Incident i")
+    public Stream<String> streamTitles();
+
+    @Query("select i.assignee.userId from Incident i where i.statusId = :statusId and i.assignee.userId in :assigneeIds")
+    public List<Long> findAssigneeIdsByStatusId(@Param("statusId") Integer statusId,
+                                                @Param("assigneeIds") Collection<Long> assigneeIds);
+
+    @EntityGraph(Incident.USERS_GRAPH)
     public Optional<Incident> findIncidentsByIncidentId(Long incidentId);
+
+    //Page and count query share a read only transaction of their own, so that callers serving cached pages, see
+    //IncidentServiceImpl.getIncidents, only borrow a connection when the page is loaded
+    @Transactional(readOnly = true)
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(i) from Incident i")
+    public Page<IncidentSummary> findIncidentSummaries(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(value = SUMMARY_SELECT + " where i.statusId = :statusId",
+            countQuery = "select count(i) from Incident i where i.statusId = :statusId")
+    public Page<IncidentSummary> findIncidentSummariesByStatusId(@Param("statusId") int statusId, Pageable pageable);
+
+    //Keyset pagination, seeks past the last seen id through the primary key instead of skipping offset rows
+    @Query(SUMMARY_SELECT + " where i.incidentId > :incidentId order by i.incidentId")
+    public List<IncidentSummary> findIncidentSummariesAfter(@Param("incidentId") Long incidentId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where i.statusId = :statusId and i.incidentId > :incidentId order by i.incidentId")
+    public List<IncidentSummary> findIncidentSummariesByStatusIdAfter(@Param("statusId") Integer statusId,
+                                                                      @Param("incidentId") Long incidentId,
+                                                                      Pageable pageable);
+
+    //Streamed row by row by MySQL Connector/J (fetch size Integer.MIN_VALUE). Projections are never managed by the
+    //persistence context, so the heap stays flat however many incidents are read
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")})
+    @Query(SUMMARY_SELECT + " order by i.incidentId")
+    public Stream<IncidentSummary> streamIncidentSummaries();
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")})
+    @Query(SUMMARY_SELECT + " where i.statusId = :statusId order by i.incidentId")
+    public Stream<IncidentSummary> streamIncidentSummariesByStatusId(@Param("statusId") Integer statusId);
 }
@@ -2,14 +2,36 @@ package com.example.incidentreport.repository;
 
 import com.example.incidentreport.model.UserDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserDetail,Long> {
 
-    boolean existsByUserNameIgnoreCase(String userName);
-     Optional<UserDetail> findByUserName(String userName);
+    //user_name uses a case insensitive collation (utf8mb4_general_ci on MySQL, VARCHAR_IGNORECASE on H2), so plain
+    //equality matches regardless of case and keeps the unique index usable
+    boolean existsByUserName(String userName);
+
+    //Found users are cached by UserNameCache
+    Optional<UserDetail> findByUserName(String userName);
+
+    List<UserDetail> findByUserNameIn(Collection<String> userNames);
+
+    //Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result, read only and
+    //ignoring the second level cache as every user is seen once. Callers detach each user after use
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_MODE, value = "IGNORE")})
+    @Query("select u from UserDetail u order by u.userId")
+    Stream<UserDetail> streamAll();
 
 }
@@ -0,0 +1,101 @@
+package com.example.incidentreport.service;
+
+import com.example.incidentreport.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * ETags of the incident and user listings, built from the table_change counters that triggers on incident and
+ * user_detail bump in the writing transaction, so writes of other instances and of the user sync change them too.
+ * The counters are read at most once per refresh interval, and again once a write of this instance commits
+ */
+@Component
+public class ChangeTracker {
+
+    private static final String INCIDENT_TABLE = "incident";
+    private static final String USER_TABLE = "user_detail";
+    private static final String SELECT_CHANGES =
+            "SELECT table_name, SUM(changes) FROM table_change GROUP BY table_name";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long refreshNanos;
+
+    private volatile Changes changes;
+
+    //Bumped on every write of this instance, counters read while it changed are not kept
+    private final AtomicLong writes = new AtomicLong();
+
+    @Autowired
+    public ChangeTracker(JdbcTemplate jdbcTemplate,
+                         @Value("${incidentreport.change-tracker.refresh:1s}") Duration refresh) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshNanos = refresh.toNanos();
+    }
+
+    public void incidentsChanged() {
+        AfterCommit.run(this::refresh);
+    }
+
+    public void usersChanged() {
+        AfterCommit.run(this::refresh);
+    }
+
+    //Incident listings contain user names, so user writes change them too
+    public String getIncidentsETag() {
+        Changes current = getChanges();
+        return "\"" + current.incidentChanges + "-" + current.userChanges + "\"";
+    }
+
+    public String getUsersETag() {
+        return "\"" + getChanges().userChanges + "\"";
+    }
+
+    private void refresh() {
+        writes.incrementAndGet();
+        changes = null;
+    }
+
+    private Changes getChanges() {
+        Changes current = changes;
+        long now = System.nanoTime();
+        if (nonNull(current) && now - current.readAt < refreshNanos) {
+            return current;
+        }
+        long writesBeforeRead = writes.get();
+        Changes read = readChanges(now);
+        if (writesBeforeRead == writes.get()) {
+            changes = read;
+        }
+        return read;
+    }
+
+    private Changes readChanges(long now) {
+        Changes read = new Changes(now);
+        jdbcTemplate.query(SELECT_CHANGES, resultSet -> {
+            if (INCIDENT_TABLE.equals(resultSet.getString(1))) {
+                read.incidentChanges = resultSet.getLong(2);
+            } else if (USER_TABLE.equals(resultSet.getString(1))) {
+                read.userChanges = resultSet.getLong(2);
+            }
+        });
+        return read;
+    }
+
+    private static final class Changes {
+        private final long readAt;
+        private long incidentChanges;
+        private long userChanges;
+
+        private Changes(long readAt) {
+            this.readAt = readAt;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.incidentreport.service;
+
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.utils.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Short lived cache of incident listing pages by listing ETag, status, page, size and sort. A page is only served
+ * under the ETag read before it was loaded, so a write of any instance that changes the ETag also misses the cache.
+ * Incident writes evict the pages of the statuses they touch and user writes evict all pages once committed, which
+ * frees them before they expire
+ */
+@Component
+public class IncidentPageCache {
+
+    static final String CACHE_NAME = "incidentPages";
+
+    //Rough heap cost of a report and of a page, strings are added per character
+    private static final int REPORT_OVERHEAD_BYTES = 96;
+    private static final int PAGE_OVERHEAD_BYTES = 128;
+
+    private final Cache<PageKey, Page<IncidentReport>> pages;
+
+    private final ChangeTracker changeTracker;
+
+    //Bumped on every eviction, a page loaded while an eviction ran may be stale and is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public IncidentPageCache(@Value("${incidentreport.incident-page-cache.expire-after-write:5s}") Duration expireAfterWrite,
+                             @Value("${incidentreport.incident-page-cache.maximum-size:16MB}") DataSize maximumSize,
+                             MeterRegistry meterRegistry, ChangeTracker changeTracker) {
+        this.changeTracker = changeTracker;
+        this.pages = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((PageKey key, Page<IncidentReport> page) -> weigh(page))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+        Gauge.builder("cache.memory", pages, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .tag("cache", CACHE_NAME)
+                .description("Estimated heap used by the cached pages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    //statusId is null for the listing of all incidents. The ETag is read before the page is loaded, so the page is at
+    //least as recent as the ETag it is cached under
+    public Page<IncidentReport> get(Integer statusId, Pageable pageable, Supplier<Page<IncidentReport>> loader) {
+        if (pageable.isUnpaged()) {
+            return loader.get();
+        }
+        PageKey key = new PageKey(changeTracker.getIncidentsETag(), statusId, pageable);
+        Page<IncidentReport> page = pages.getIfPresent(key);
+        if (nonNull(page)) {
+            return page;
+        }
+        long evictionsBeforeLoad = evictions.get();
+        page = loader.get();
+        if (evictionsBeforeLoad == evictions.get()) {
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    //Evicts the pages of the given statuses and of the listing of all incidents, after commit when called inside a
+    //transaction so that a concurrent read can not cache the rows as they were before the write
+    public void evict(Collection<Integer> statusIds) {
+        Set<Integer> evictedStatusIds = new HashSet<>(statusIds);
+        AfterCommit.run(() -> evictNow(evictedStatusIds));
+    }
+
+    //User names are shown on every page, so user writes evict them all
+    public void evictAll() {
+        AfterCommit.run(() -> {
+            evictions.incrementAndGet();
+            pages.invalidateAll();
+        });
+    }
+
+    private void evictNow(Set<Integer> statusIds) {
+        evictions.incrementAndGet();
+        pages.asMap().keySet().removeIf(key -> isNull(key.statusId) || statusIds.contains(key.statusId));
+    }
+
+    private static int weigh(Page<IncidentReport> page) {
+        long bytes = PAGE_OVERHEAD_BYTES;
+        for (IncidentReport incidentReport : page.getContent()) {
+            bytes += REPORT_OVERHEAD_BYTES + 2L * (length(incidentReport.getTitle())
+                    + length(incidentReport.getStatus()) + length(incidentReport.getCreator())
+                    + length(incidentReport.getAssignee()));
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int length(String value) {
+        return isNull(value) ? 0 : value.length();
+    }
+
+    private static final class PageKey {
+        private final String eTag;
+        private final Integer statusId;
+        private final int pageNumber;
+        private final int pageSize;
+        private final String sort;
+
+        private PageKey(String eTag, Integer statusId, Pageable pageable) {
+            this.eTag = eTag;
+            this.statusId = statusId;
+            this.pageNumber = pageable.getPageNumber();
+            this.pageSize = pageable.getPageSize();
+            this.sort = pageable.getSort().toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey pageKey = (PageKey) o;
+            return pageNumber == pageKey.pageNumber && pageSize == pageKey.pageSize &&
+                    Objects.equals(eTag, pageKey.eTag) && Objects.equals(statusId, pageKey.statusId) && sort.equals(pageKey.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eTag, statusId, pageNumber, pageSize, sort);
+        }
+    }
+}
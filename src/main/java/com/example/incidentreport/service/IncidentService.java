@@ -1,16 +1,27 @@
 package com.example.incidentreport.service;
 
+import com.example.incidentreport.contract.BulkIncidentResult;
 import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.IncidentReportSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface IncidentService {
 
     void createIncident(IncidentReport incidentReport);
 
+    List<BulkIncidentResult> createIncidents(List<IncidentReport> incidentReports);
+
     Page<IncidentReport> getIncidents(String status, Pageable pageable);
 
-    void updateIncident(Long incidentId, String currentUser, IncidentReport incidentReport);
+    IncidentReportSlice getIncidentsAfter(String status, String continuationToken, int size);
+
+    void forEachIncident(String status, Consumer<IncidentReport> consumer);
+
+    Long updateIncident(Long incidentId, String currentUser, IncidentReport incidentReport, Long expectedVersion);
 
-    void deleteIncident(Long incidentId, String currentUser);
+    void deleteIncident(Long incidentId, String currentUser, Long expectedVersion);
 }
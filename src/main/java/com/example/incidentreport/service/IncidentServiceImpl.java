@@ -1,24 +1,44 @@
 package com.example.incidentreport.service;
 
+import com.example.incidentreport.contract.BulkIncidentResult;
 import com.example.incidentreport.model.Incident;
 import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.IncidentReportSlice;
 import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.model.IncidentSummary;
 import com.example.incidentreport.model.UserDetail;
 import com.example.incidentreport.repository.IncidentRepository;
 import com.example.incidentreport.repository.UserRepository;
 import com.example.incidentreport.utils.BadRequestException;
 import com.example.incidentreport.utils.ConflictException;
-import org.apache.commons.collections4.CollectionUtils;
+import com.example.incidentreport.utils.ContinuationToken;
+import com.example.incidentreport.utils.PreconditionFailedException;
+import com.example.incidentreport.utils.TitleHash;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -28,30 +48,190 @@ import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 @Service
 public class IncidentServiceImpl implements IncidentService {
 
+    private static final int MAX_SLICE_SIZE = 1000;
+    private static final int MAX_BULK_SIZE = 5000;
+
+    private static final String INVALID_CREATOR = "Invalid creator provided";
+    private static final String INVALID_ASSIGNEE = "Invalid assignee provided";
+    private static final String DUPLICATE_TITLE = "Incident report by the same title already exists";
+    private static final String ASSIGNEE_ALREADY_ASSIGNED = "Assignee already has other tasks in assigned status";
+
     private final IncidentRepository incidentRepository;
 
     private final UserRepository userRepository;
 
+    private final UserNameCache userNameCache;
+
+    private final IncidentPageCache incidentPageCache;
+
+    private final ChangeTracker changeTracker;
+
+    private final TitleFilter titleFilter;
+
     @Autowired
-    public IncidentServiceImpl(IncidentRepository incidentRepository, UserRepository userRepository) {
+    public IncidentServiceImpl(IncidentRepository incidentRepository, UserRepository userRepository,
+                               UserNameCache userNameCache, IncidentPageCache incidentPageCache,
+                               ChangeTracker changeTracker, TitleFilter titleFilter) {
         this.incidentRepository = incidentRepository;
         this.userRepository = userRepository;
+        this.userNameCache = userNameCache;
+        this.incidentPageCache = incidentPageCache;
+        this.changeTracker = changeTracker;
+        this.titleFilter = titleFilter;
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUpTitleFilter() {
+        try (Stream<String> titles = incidentRepository.streamTitles()) {
+            titleFilter.warmUp(titles);
+        }
+    }
+
+    //Titles the filter has not seen skip the duplicate title probe. Duplicates missed by the filter and assignees
+    //with another assigned incident are rejected by the uk_incident_title_hash and uk_incident_assigned_assignee
+    //unique constraints on insert, see CustomExceptionHandler
     @Override
     public void createIncident(IncidentReport incidentReport) {
         validateMandatoryFields(incidentReport);
-        validateTitle(incidentReport);
         UserDetail creator = validateCreator(incidentReport);
-        UserDetail assignee = validateAssignee(incidentReport);
+        UserDetail assignee = StringUtils.equalsIgnoreCase(incidentReport.getCreator(), incidentReport.getAssignee()) ?
+                creator : validateAssignee(incidentReport);
         validateStatus(incidentReport.getStatus());
-        validateAssigneeStatus(assignee);
+        if (titleFilter.mightContain(incidentReport.getTitle()) &&
+                incidentRepository.existsByTitleHash(TitleHash.of(incidentReport.getTitle()))) {
+            throw new ConflictException(DUPLICATE_TITLE);
+        }
 
         IncidentStatus incidentStatus = !isEmpty(incidentReport.getAssignee()) ? IncidentStatus.ASSIGNED :
                 IncidentStatus.NEW;
         incidentRepository.save(new Incident.Builder().creator(creator)
                 .assignee(assignee).statusId(incidentStatus.getValue())
                 .title(incidentReport.getTitle()).build());
+        titleFilter.add(incidentReport.getTitle());
+        incidentsChanged(Collections.singleton(incidentStatus.getValue()));
+    }
+
+    @Override
+    @Transactional
+    public List<BulkIncidentResult> createIncidents(List<IncidentReport> incidentReports) {
+        if (incidentReports.size() > MAX_BULK_SIZE) {
+            throw new BadRequestException(String.format("At most %d incidents can be created at once", MAX_BULK_SIZE));
+        }
+        //Set based lookups replace the per incident title, user and workload selects of createIncident
+        Set<String> userNames = new HashSet<>();
+        List<byte[]> titleHashes = new ArrayList<>();
+        for (IncidentReport incidentReport : incidentReports) {
+            //Null entries are rejected per item by buildIncident
+            if (isNull(incidentReport)) {
+                continue;
+            }
+            if (isNotEmpty(incidentReport.getCreator())) {
+                userNames.add(incidentReport.getCreator());
+            }
+            if (isNotEmpty(incidentReport.getAssignee())) {
+                userNames.add(incidentReport.getAssignee());
+            }
+            //Only titles the filter might have seen are looked up
+            if (isNotEmpty(incidentReport.getTitle()) && titleFilter.mightContain(incidentReport.getTitle())) {
+                titleHashes.add(TitleHash.of(incidentReport.getTitle()));
+            }
+        }
+        Map<String, UserDetail> users = new HashMap<>();
+        if (!userNames.isEmpty()) {
+            for (UserDetail userDetail : userRepository.findByUserNameIn(userNames)) {
+                users.put(normalize(userDetail.getUserName()), userDetail);
+            }
+        }
+        Set<String> takenTitles = new HashSet<>();
+        if (!titleHashes.isEmpty()) {
+            for (String title : incidentRepository.findTitlesByTitleHashIn(titleHashes)) {
+                takenTitles.add(TitleHash.normalize(title));
+            }
+        }
+        Set<Long> assignedUserIds = new HashSet<>();
+        if (!users.isEmpty()) {
+            Set<Long> userIds = new HashSet<>();
+            for (UserDetail userDetail : users.values()) {
+                userIds.add(userDetail.getUserId());
+            }
+            assignedUserIds.addAll(incidentRepository.findAssigneeIdsByStatusId(IncidentStatus.ASSIGNED.getValue(),
+                    userIds));
+        }
+
+        BulkIncidentResult[] results = new BulkIncidentResult[incidentReports.size()];
+        List<Incident> incidents = new ArrayList<>();
+        List<Integer> incidentIndexes = new ArrayList<>();
+        for (int index = 0; index < incidentReports.size(); index++) {
+            try {
+                incidents.add(buildIncident(incidentReports.get(index), users, takenTitles, assignedUserIds));
+                incidentIndexes.add(index);
+            } catch (BadRequestException e) {
+                results[index] = new BulkIncidentResult(index, HttpStatus.BAD_REQUEST.value(), null, e.getMessage());
+            } catch (ConflictException e) {
+                results[index] = new BulkIncidentResult(index, HttpStatus.CONFLICT.value(), null, e.getMessage());
+            }
+        }
+
+        //Inserts are sent in JDBC batches when the transaction flushes, see hibernate.jdbc.batch_size
+        incidentRepository.saveAll(incidents);
+        Set<Integer> statusIds = new HashSet<>();
+        for (int i = 0; i < incidents.size(); i++) {
+            int index = incidentIndexes.get(i);
+            results[index] = new BulkIncidentResult(index, HttpStatus.CREATED.value(),
+                    incidents.get(i).getIncidentId(), null);
+            statusIds.add(incidents.get(i).getStatusId());
+            titleFilter.add(incidents.get(i).getTitle());
+        }
+        if (!statusIds.isEmpty()) {
+            incidentsChanged(statusIds);
+        }
+        return Arrays.asList(results);
+    }
+
+    //Same rules as createIncident, checked against the prefetched users, titles and assigned users. Accepted
+    //titles and assignees are added to the sets so that duplicates inside the same request are rejected too
+    private Incident buildIncident(IncidentReport incidentReport, Map<String, UserDetail> users,
+                                   Set<String> takenTitles, Set<Long> assignedUserIds) {
+        validateMandatoryFields(incidentReport);
+        UserDetail creator = users.get(normalize(incidentReport.getCreator()));
+        if (isNull(creator)) {
+            throw new BadRequestException(INVALID_CREATOR);
+        }
+        UserDetail assignee = null;
+        if (isNotEmpty(incidentReport.getAssignee())) {
+            assignee = users.get(normalize(incidentReport.getAssignee()));
+            if (isNull(assignee)) {
+                throw new BadRequestException(INVALID_ASSIGNEE);
+            }
+        }
+        validateStatus(incidentReport.getStatus());
+        if (takenTitles.contains(TitleHash.normalize(incidentReport.getTitle()))) {
+            throw new ConflictException(DUPLICATE_TITLE);
+        }
+        if (nonNull(assignee) && assignedUserIds.contains(assignee.getUserId())) {
+            throw new ConflictException(ASSIGNEE_ALREADY_ASSIGNED);
+        }
+
+        takenTitles.add(TitleHash.normalize(incidentReport.getTitle()));
+        if (nonNull(assignee)) {
+            assignedUserIds.add(assignee.getUserId());
+        }
+        IncidentStatus incidentStatus = nonNull(assignee) ? IncidentStatus.ASSIGNED : IncidentStatus.NEW;
+        return new Incident.Builder().creator(creator)
+                .assignee(assignee).statusId(incidentStatus.getValue())
+                .title(incidentReport.getTitle()).build();
+    }
+
+    //Cached pages and ETags of the listings are refreshed once the write commits
+    private void incidentsChanged(Collection<Integer> statusIds) {
+        incidentPageCache.evict(statusIds);
+        changeTracker.incidentsChanged();
+    }
+
+    //User names are compared case insensitively by their column collation, titles by TitleHash.normalize
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
     }
 
     private IncidentStatus validateStatus(String status) {
@@ -65,20 +245,11 @@ public class IncidentServiceImpl implements IncidentService {
         return null;
     }
 
-    //Check if assignee already has tasks in assigned status
-    private void validateAssigneeStatus(UserDetail assignee) {
-        List<Incident> assignedIncidentsList =
-                incidentRepository.findByAssigneeAndStatusId(assignee, IncidentStatus.ASSIGNED.getValue());
-        if (CollectionUtils.isNotEmpty(assignedIncidentsList)) {
-            throw new ConflictException("Assignee already has other tasks in assigned status");
-        }
-    }
-
     private UserDetail validateAssignee(IncidentReport incidentReport) {
         if (!StringUtils.isEmpty(incidentReport.getAssignee())) {
-            Optional<UserDetail> assignee = userRepository.findByUserName(incidentReport.getAssignee());
+            Optional<UserDetail> assignee = userNameCache.findReference(incidentReport.getAssignee());
             if (!assignee.isPresent()) {
-                throw new BadRequestException("Invalid assignee provided");
+                throw new BadRequestException(INVALID_ASSIGNEE);
             }
             return assignee.get();
         }
@@ -86,77 +257,126 @@ public class IncidentServiceImpl implements IncidentService {
     }
 
     private UserDetail validateCreator(IncidentReport incidentReport) {
-        Optional<UserDetail> creator = userRepository.findByUserName(incidentReport.getCreator());
+        Optional<UserDetail> creator = userNameCache.findReference(incidentReport.getCreator());
         if (!creator.isPresent()) {
-            throw new BadRequestException("Invalid creator provided");
+            throw new BadRequestException(INVALID_CREATOR);
         }
         return creator.get();
     }
 
-    private void validateTitle(IncidentReport incidentReport) {
-        if (incidentRepository.findByTitle(incidentReport.getTitle()).isPresent()) {
-            throw new ConflictException("Incident report by the same title already exists");
-        }
-    }
-
     private void validateMandatoryFields(IncidentReport incidentReport) {
-        if (isEmpty(incidentReport.getTitle()) || isEmpty(incidentReport.getCreator())) {
+        if (isNull(incidentReport) || isEmpty(incidentReport.getTitle()) || isEmpty(incidentReport.getCreator())) {
             throw new BadRequestException("Missing mandatory fields");
         }
     }
 
-    private Page<IncidentReport> getIncidentReports(List<Incident> incidentList,Pageable pageable) {
-        List<IncidentReport> incidentReports = new ArrayList<>();
-        if (CollectionUtils.isNotEmpty(incidentList)) {
-            for (Incident incident : incidentList) {
-                IncidentReport incidentReport = new IncidentReport.Builder()
-                        .title(incident.getTitle())
-                        .creator(incident.getCreator().getUserName())
-                        .assignee(nonNull(incident.getAssignee()) ? incident.getAssignee().getUserName():
-                                StringUtils.EMPTY)
-                        .status(getStatus(incident))
-                        .incidentId(incident.getIncidentId())
-                        .build();
-                incidentReports.add(incidentReport);
-            }
+    private Page<IncidentReport> getIncidentReports(Page<IncidentSummary> incidentPage) {
+        List<IncidentReport> incidentReports = new ArrayList<>(incidentPage.getNumberOfElements());
+        for (IncidentSummary incident : incidentPage.getContent()) {
+            incidentReports.add(getIncidentReport(incident));
         }
-        return new PageImpl<>(incidentReports,pageable,incidentReports.size());
+        //Total comes from the count query of the page, not from the size of the loaded slice
+        return new PageImpl<>(incidentReports, incidentPage.getPageable(), incidentPage.getTotalElements());
+    }
+
+    private IncidentReport getIncidentReport(IncidentSummary incident) {
+        return new IncidentReport.Builder()
+                .title(incident.getTitle())
+                .creator(incident.getCreator())
+                .assignee(nonNull(incident.getAssignee()) ? incident.getAssignee() : StringUtils.EMPTY)
+                .status(getStatus(incident.getStatusId()))
+                .incidentId(incident.getIncidentId())
+                .version(incident.getVersion())
+                .build();
     }
 
-    private String getStatus(Incident incident) {
-        return nonNull(IncidentStatus.getIncidentStatusById(incident.getStatusId())) ?
-                IncidentStatus.getIncidentStatusById(incident.getStatusId()).getName() : StringUtils.EMPTY;
+    private String getStatus(Integer statusId) {
+        IncidentStatus incidentStatus = IncidentStatus.getIncidentStatusById(statusId);
+        return nonNull(incidentStatus) ? incidentStatus.getName() : StringUtils.EMPTY;
     }
 
 
+    //Pages are served from IncidentPageCache under the current incidents ETag, writes below evict the statuses they
+    //touch. Not transactional, a cached page is returned without borrowing a connection unless the ETag counters are
+    //due to be read again, and a missing page is loaded in the transaction of the repository
     @Override
     public Page<IncidentReport> getIncidents(String status, Pageable pageable) {
-        if(nonNull(IncidentStatus.getIncidentStatusByName(status))) {
-            List<Incident> incidentList = incidentRepository.findIncidentsByStatusId(getStatusId(status));
-            return getIncidentReports(incidentList, pageable);
+        Integer statusId = nonNull(IncidentStatus.getIncidentStatusByName(status)) ? getStatusId(status) : null;
+        return incidentPageCache.get(statusId, pageable, () -> getIncidentReports(nonNull(statusId) ?
+                incidentRepository.findIncidentSummariesByStatusId(statusId, pageable) :
+                incidentRepository.findIncidentSummaries(pageable)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public IncidentReportSlice getIncidentsAfter(String status, String continuationToken, int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new BadRequestException(String.format("Size should be between 1 and %d", MAX_SLICE_SIZE));
         }
-        else {
-            Page<Incident> incidentPage = incidentRepository.findAll(pageable);
-            return getIncidentReports(incidentPage.getContent(),pageable);
+        IncidentStatus incidentStatus = validateStatus(status);
+        Integer statusId = nonNull(incidentStatus) ? incidentStatus.getValue() : null;
+        long lastIncidentId = 0L;
+        if (isNotEmpty(continuationToken)) {
+            ContinuationToken token = ContinuationToken.decode(continuationToken);
+            if (nonNull(incidentStatus) && !statusId.equals(token.getStatusId())) {
+                throw new BadRequestException("Status does not match the continuation token");
+            }
+            statusId = token.getStatusId();
+            lastIncidentId = token.getLastIncidentId();
+        }
+
+        //One extra row tells whether another slice exists without running a count query
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<IncidentSummary> incidents = nonNull(statusId) ?
+                incidentRepository.findIncidentSummariesByStatusIdAfter(statusId, lastIncidentId, limit) :
+                incidentRepository.findIncidentSummariesAfter(lastIncidentId, limit);
+
+        boolean hasNext = incidents.size() > size;
+        List<IncidentReport> incidentReports = new ArrayList<>(Math.min(incidents.size(), size));
+        for (IncidentSummary incident : hasNext ? incidents.subList(0, size) : incidents) {
+            incidentReports.add(getIncidentReport(incident));
+        }
+        String nextToken = hasNext ?
+                new ContinuationToken(statusId, incidents.get(size - 1).getIncidentId()).encode() : null;
+        return new IncidentReportSlice(incidentReports, nextToken);
+    }
+
+    //Reads incidents from a streamed result ordered by id, for exports of all incidents. An unknown status is
+    //rejected like in getIncidentsAfter instead of exporting every incident
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachIncident(String status, Consumer<IncidentReport> consumer) {
+        IncidentStatus incidentStatus = validateStatus(status);
+        try (Stream<IncidentSummary> incidents = nonNull(incidentStatus) ?
+                incidentRepository.streamIncidentSummariesByStatusId(incidentStatus.getValue()) :
+                incidentRepository.streamIncidentSummaries()) {
+            incidents.forEach(incident -> consumer.accept(getIncidentReport(incident)));
         }
     }
 
+    //Mutates the managed incident, dirty checking flushes a single update of the changed columns guarded by the
+    //version column, so a concurrent update of the same version fails instead of being overwritten
     @Override
-    public void updateIncident(Long incidentId, String currentUser, IncidentReport incidentReport) {
-        Optional<UserDetail> userDetail = validateCurrentUser(currentUser);
+    @Transactional
+    public Long updateIncident(Long incidentId, String currentUser, IncidentReport incidentReport,
+                               Long expectedVersion) {
+        Optional<Incident> optionalIncident = incidentRepository.findIncidentsByIncidentId(incidentId);
+        UserDetail currentUserDetail = validateCurrentUser(currentUser, optionalIncident);
         IncidentStatus status = validateStatus(incidentReport.getStatus());
-        UserDetail assignee = validateAssignee(incidentReport);
-        UserDetail currentUserDetail = userDetail.get();
+        UserDetail assignee = validateAssignee(incidentReport, optionalIncident);
 
-        Optional<Incident> optionalIncident = validateIncidentId(incidentId);
-        Incident incident = optionalIncident.get();
+        Incident incident = validateIncidentId(optionalIncident);
+        validateVersion(incident, expectedVersion);
 
         validateUserForReportStatusUpdate(currentUser, incidentReport, currentUserDetail, incident);
 
-        if (incident.getCreator().getUserId().equals(currentUserDetail.getUserId())
-                || (nonNull(incident.getAssignee()) &&
-                incident.getAssignee().getUserId().equals(currentUserDetail.getUserId()))) {
-            updateReport(incidentId, incidentReport, status, assignee, incident);
+        if (isCreatorOrAssignee(incident, currentUserDetail)) {
+            Integer previousStatusId = incident.getStatusId();
+            updateReport(incidentReport, status, assignee, incident);
+            incidentsChanged(Arrays.asList(previousStatusId, incident.getStatusId()));
+            //Flush now so that the returned version is the one the update was written with
+            incidentRepository.flush();
+            return incident.getVersion();
         }
         else {
             throw new BadRequestException(String.format(
@@ -164,14 +384,25 @@ public class IncidentServiceImpl implements IncidentService {
         }
     }
 
-    private void updateReport(Long incidentId, IncidentReport incidentReport,
-                              IncidentStatus status, UserDetail assignee, Incident incident) {
-        Incident.Builder incidentBuilder = new Incident.Builder().incidentId(incidentId).creator(incident.getCreator());
-        incidentBuilder.assignee(nonNull(incidentReport.getAssignee()) ? assignee : incident.getAssignee());
-        incidentBuilder.title(isNotEmpty(incidentReport.getTitle())? incidentReport.getTitle() : incident.getTitle());
-        incidentBuilder.creator(incident.getCreator());
-        incidentBuilder.statusId(nonNull(status) ? status.getValue() : incident.getStatusId());
-        incidentRepository.save(incidentBuilder.build());
+    private void updateReport(IncidentReport incidentReport, IncidentStatus status, UserDetail assignee,
+                              Incident incident) {
+        if (nonNull(incidentReport.getAssignee())) {
+            incident.setAssignee(assignee);
+        }
+        if (isNotEmpty(incidentReport.getTitle()) && !incidentReport.getTitle().equals(incident.getTitle())) {
+            titleFilter.remove(incident.getTitle());
+            titleFilter.add(incidentReport.getTitle());
+            incident.setTitle(incidentReport.getTitle());
+        }
+        if (nonNull(status)) {
+            incident.setStatusId(status.getValue());
+        }
+    }
+
+    private boolean isCreatorOrAssignee(Incident incident, UserDetail userDetail) {
+        return incident.getCreator().getUserId().equals(userDetail.getUserId())
+                || (nonNull(incident.getAssignee()) &&
+                incident.getAssignee().getUserId().equals(userDetail.getUserId()));
     }
 
     //Only the assignee can update the report status
@@ -185,32 +416,63 @@ public class IncidentServiceImpl implements IncidentService {
         }
     }
 
-    private Optional<UserDetail> validateCurrentUser(String currentUser) {
-        Optional<UserDetail> userDetail = userRepository.findByUserName(currentUser);
+    private UserDetail validateCurrentUser(String currentUser, Optional<Incident> optionalIncident) {
+        UserDetail incidentUser = findIncidentUser(currentUser, optionalIncident);
+        if (nonNull(incidentUser)) {
+            return incidentUser;
+        }
+        Optional<UserDetail> userDetail = userNameCache.findReference(currentUser);
         if(!userDetail.isPresent()) {
             throw new BadRequestException("User provided does not exist");
         }
-        return userDetail;
+        return userDetail.get();
     }
 
-    private Optional<Incident> validateIncidentId(Long incidentId) {
-        Optional<Incident> optionalIncident = incidentRepository.findIncidentsByIncidentId(incidentId);
+    private UserDetail validateAssignee(IncidentReport incidentReport, Optional<Incident> optionalIncident) {
+        UserDetail incidentUser = findIncidentUser(incidentReport.getAssignee(), optionalIncident);
+        return nonNull(incidentUser) ? incidentUser : validateAssignee(incidentReport);
+    }
+
+    //Creator and assignee are fetched with the incident, reusing them saves the user select in the common case
+    //where the creator or the assignee changes their own report
+    private UserDetail findIncidentUser(String userName, Optional<Incident> optionalIncident) {
+        if (isEmpty(userName) || !optionalIncident.isPresent()) {
+            return null;
+        }
+        Incident incident = optionalIncident.get();
+        if (userName.equalsIgnoreCase(incident.getCreator().getUserName())) {
+            return incident.getCreator();
+        }
+        if (nonNull(incident.getAssignee()) && userName.equalsIgnoreCase(incident.getAssignee().getUserName())) {
+            return incident.getAssignee();
+        }
+        return null;
+    }
+
+    private void validateVersion(Incident incident, Long expectedVersion) {
+        if (nonNull(expectedVersion) && !expectedVersion.equals(incident.getVersion())) {
+            throw new PreconditionFailedException(PreconditionFailedException.CONCURRENT_MODIFICATION);
+        }
+    }
+
+    private Incident validateIncidentId(Optional<Incident> optionalIncident) {
         if(!optionalIncident.isPresent()) {
             throw new BadRequestException("Incident provided does not exist");
         }
-        return optionalIncident;
+        return optionalIncident.get();
     }
 
     @Override
-    public void deleteIncident(Long incidentId, String currentUser) {
-        Optional<UserDetail> userDetail = validateCurrentUser(currentUser);
-        Optional<Incident> optionalIncident = validateIncidentId(incidentId);
-        UserDetail currentUserDetail = userDetail.get();
-        Incident incident = optionalIncident.get();
-        if (incident.getCreator().getUserId().equals(currentUserDetail.getUserId())
-                || (nonNull(incident.getAssignee()) &&
-                incident.getAssignee().getUserId().equals(currentUserDetail.getUserId()))) {
+    @Transactional
+    public void deleteIncident(Long incidentId, String currentUser, Long expectedVersion) {
+        Optional<Incident> optionalIncident = incidentRepository.findIncidentsByIncidentId(incidentId);
+        UserDetail currentUserDetail = validateCurrentUser(currentUser, optionalIncident);
+        Incident incident = validateIncidentId(optionalIncident);
+        validateVersion(incident, expectedVersion);
+        if (isCreatorOrAssignee(incident, currentUserDetail)) {
             incidentRepository.delete(incident);
+            titleFilter.remove(incident.getTitle());
+            incidentsChanged(Collections.singleton(incident.getStatusId()));
         }
         else {
             throw new BadRequestException(String.format(
@@ -0,0 +1,170 @@
+package com.example.incidentreport.service;
+
+import com.example.incidentreport.model.IncidentStatus;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Latency histograms of service operations, split by the status filter for operations taking a status. Recording
+ * goes to a wait-free HdrHistogram Recorder and does not allocate once the operation has been seen, readers swap
+ * out the recorded interval and add it to the totals since startup
+ */
+@Component
+public class OperationLatencies {
+
+    //1 µs to 1 minute at 1% precision, longer operations are recorded as 1 minute
+    private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final String STATUS_PARAMETER = "status";
+    private static final IncidentStatus[] STATUSES = IncidentStatus.values();
+
+    private final ConcurrentMap<Method, Operation> operations = new ConcurrentHashMap<>();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    public void record(Method method, Object[] arguments, long nanos) {
+        Operation operation = operations.get(method);
+        if (isNull(operation)) {
+            operation = operations.computeIfAbsent(method, this::newOperation);
+        }
+        operation.record(arguments, nanos);
+    }
+
+    //Operation name, with the status filter in brackets, to its latencies since startup
+    public SortedMap<String, LatencySummary> getSummaries() {
+        SortedMap<String, LatencySummary> summaries = new TreeMap<>();
+        for (Operation operation : operations.values()) {
+            operation.collect(summaries);
+        }
+        return Collections.unmodifiableSortedMap(summaries);
+    }
+
+    private Operation newOperation(Method method) {
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        int statusParameter = -1;
+        for (int i = 0; nonNull(parameterNames) && i < parameterNames.length; i++) {
+            if (STATUS_PARAMETER.equals(parameterNames[i]) && method.getParameterTypes()[i] == String.class) {
+                statusParameter = i;
+            }
+        }
+        return new Operation(method.getDeclaringClass().getSimpleName() + "." + method.getName(), statusParameter);
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final int statusParameter;
+        //Slot 0 holds calls without a known status, slot i the calls filtering on STATUSES[i - 1]
+        private final Recorder[] recorders;
+        private final Histogram[] intervals;
+        private final Histogram[] totals;
+
+        private Operation(String name, int statusParameter) {
+            this.name = name;
+            this.statusParameter = statusParameter;
+            int slots = statusParameter < 0 ? 1 : STATUSES.length + 1;
+            this.recorders = new Recorder[slots];
+            this.intervals = new Histogram[slots];
+            this.totals = new Histogram[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                recorders[slot] = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+                totals[slot] = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+            }
+        }
+
+        private void record(Object[] arguments, long nanos) {
+            recorders[slot(arguments)].recordValue(Math.min(Math.max(nanos, LOWEST_NANOS), HIGHEST_NANOS));
+        }
+
+        private int slot(Object[] arguments) {
+            if (statusParameter >= 0 && arguments[statusParameter] instanceof String) {
+                String status = (String) arguments[statusParameter];
+                for (int i = 0; i < STATUSES.length; i++) {
+                    if (STATUSES[i].getName().equalsIgnoreCase(status)) {
+                        return i + 1;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        private synchronized void collect(Map<String, LatencySummary> summaries) {
+            for (int slot = 0; slot < recorders.length; slot++) {
+                intervals[slot] = isNull(intervals[slot]) ? recorders[slot].getIntervalHistogram() :
+                        recorders[slot].getIntervalHistogram(intervals[slot]);
+                totals[slot].add(intervals[slot]);
+                if (totals[slot].getTotalCount() > 0) {
+                    summaries.put(name + label(slot), new LatencySummary(totals[slot]));
+                }
+            }
+        }
+
+        private String label(int slot) {
+            if (statusParameter < 0) {
+                return "";
+            }
+            return slot == 0 ? "[all]" : "[" + STATUSES[slot - 1].getName() + "]";
+        }
+    }
+
+    public static final class LatencySummary {
+        private final long count;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double maxMillis;
+
+        private LatencySummary(Histogram histogram) {
+            this.count = histogram.getTotalCount();
+            this.p50Millis = millis(histogram.getValueAtPercentile(50));
+            this.p90Millis = millis(histogram.getValueAtPercentile(90));
+            this.p99Millis = millis(histogram.getValueAtPercentile(99));
+            this.p999Millis = millis(histogram.getValueAtPercentile(99.9));
+            this.maxMillis = millis(histogram.getMaxValue());
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getP999Millis() {
+            return p999Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
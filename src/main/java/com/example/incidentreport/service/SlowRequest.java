@@ -0,0 +1,71 @@
+package com.example.incidentreport.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A service call slower than the slow request threshold, with the request mapping it served and where its time went.
+ * Parameters are kept as their types only, so that no request body or user name is exposed
+ */
+public class SlowRequest {
+
+    private final Instant startedAt;
+    private final String request;
+    private final String operation;
+    private final List<String> parameterTypes;
+    private final String thread;
+    private final double totalMillis;
+    private final double jdbcMillis;
+    private final int sqlStatements;
+
+    public SlowRequest(Instant startedAt, String request, String operation, List<String> parameterTypes,
+                       String thread, double totalMillis, double jdbcMillis, int sqlStatements) {
+        this.startedAt = startedAt;
+        this.request = request;
+        this.operation = operation;
+        this.parameterTypes = parameterTypes;
+        this.thread = thread;
+        this.totalMillis = totalMillis;
+        this.jdbcMillis = jdbcMillis;
+        this.sqlStatements = sqlStatements;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    //Method and mapped path pattern of the HTTP request, null for calls made outside of a request
+    public String getRequest() {
+        return request;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    //Simple class names of the arguments, null for null arguments
+    public List<String> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getJdbcMillis() {
+        return jdbcMillis;
+    }
+
+    //Time outside of JDBC, in the service, Hibernate and the caches
+    public double getOtherMillis() {
+        return totalMillis - jdbcMillis;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+}
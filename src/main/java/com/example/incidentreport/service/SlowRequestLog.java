@@ -0,0 +1,56 @@
+package com.example.incidentreport.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Ring buffer of the last slow service calls, older entries are overwritten without locking
+ */
+@Component
+public class SlowRequestLog {
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowRequest> entries;
+    private final AtomicLong added = new AtomicLong();
+
+    @Autowired
+    public SlowRequestLog(@Value("${incidentreport.slow-requests.threshold:500ms}") Duration threshold,
+                          @Value("${incidentreport.slow-requests.capacity:100}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("incidentreport.slow-requests.capacity must be at least 1, was " +
+                    capacity);
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    public void add(SlowRequest slowRequest) {
+        entries.set((int) (added.getAndIncrement() % entries.length()), slowRequest);
+    }
+
+    //Newest first, a slot being overwritten meanwhile may show its newer entry
+    public List<SlowRequest> getSlowRequests() {
+        long last = added.get();
+        List<SlowRequest> slowRequests = new ArrayList<>(entries.length());
+        for (long index = last - 1; index >= 0 && index >= last - entries.length(); index--) {
+            SlowRequest slowRequest = entries.get((int) (index % entries.length()));
+            if (nonNull(slowRequest)) {
+                slowRequests.add(slowRequest);
+            }
+        }
+        return slowRequests;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.incidentreport.service;
+
+import com.example.incidentreport.utils.AfterCommit;
+import com.example.incidentreport.utils.TitleHash;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Counting Bloom filter of the incident titles created through this instance, so that creates of new titles skip
+ * the duplicate title query. Until warmed up with the stored titles every title might be present. Counters are 4
+ * bits, sixteen to a long, a saturated counter is never decremented. Titles written elsewhere are not seen, the
+ * uk_incident_title_hash unique index stays the authority on duplicates
+ */
+@Component
+public class TitleFilter {
+
+    private static final int COUNTERS_PER_WORD = Long.SIZE / 4;
+    private static final long MAX_COUNT = 0xF;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashFunctions;
+
+    private volatile boolean warm;
+
+    @Autowired
+    public TitleFilter(@Value("${incidentreport.title-filter.expected-titles:1000000}") long expectedTitles,
+                       @Value("${incidentreport.title-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        long optimalCounters = (long) Math.ceil(-expectedTitles * Math.log(falsePositiveProbability)
+                / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (optimalCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+        this.counters = (long) words.length() * COUNTERS_PER_WORD;
+        this.hashFunctions = (int) Math.max(1, Math.round((double) counters / expectedTitles * Math.log(2)));
+    }
+
+    //Adds the stored titles, titles added or removed meanwhile are counted as well
+    public void warmUp(Stream<String> titles) {
+        titles.forEach(this::add);
+        warm = true;
+    }
+
+    public boolean mightContain(String title) {
+        if (!warm) {
+            return true;
+        }
+        long[] hashes = hashes(title);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (count(index(hashes, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Added right away, a title of a write that rolls back only leaves a false positive
+    public void add(String title) {
+        long[] hashes = hashes(title);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(index(hashes, i), 1);
+        }
+    }
+
+    //Removed once the current transaction commits, a title removed before a rollback would be missed by the filter
+    public void remove(String title) {
+        long[] hashes = hashes(title);
+        AfterCommit.run(() -> {
+            for (int i = 0; i < hashFunctions; i++) {
+                update(index(hashes, i), -1);
+            }
+        });
+    }
+
+    private void update(long index, int delta) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = words.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+                return;
+            }
+            if (words.compareAndSet(word, current, current + ((long) delta << shift))) {
+                return;
+            }
+        }
+    }
+
+    private long count(long index) {
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        return (words.get((int) (index / COUNTERS_PER_WORD)) >>> shift) & MAX_COUNT;
+    }
+
+    //Double hashing, the halves of the title hash derive all the counter indexes
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], counters);
+    }
+
+    private static long[] hashes(String title) {
+        ByteBuffer hash = ByteBuffer.wrap(TitleHash.of(title));
+        return new long[]{hash.getLong(), hash.getLong()};
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.incidentreport.service;
+
+import com.example.incidentreport.contract.User;
+import com.example.incidentreport.model.UserDetail;
+import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.incidentreport.config.CacheConfig.USERS_BY_NAME;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Users by lower cased user name, kept as immutable User contracts in the usersByName cache so that no entity is
+ * shared between threads. Only found users are cached. User writes evict the names they touch once committed, a user
+ * loaded while an eviction ran is evicted again so that a read racing a write can not put the old row back
+ */
+@Component
+public class UserNameCache {
+
+    private final Cache users;
+
+    private final UserRepository userRepository;
+
+    //Bumped on every eviction, a user loaded while it changed is evicted again after it is put
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public UserNameCache(CacheManager cacheManager, UserRepository userRepository) {
+        this.users = cacheManager.getCache(USERS_BY_NAME);
+        this.userRepository = userRepository;
+    }
+
+    public Optional<User> find(String userName) {
+        if (isNull(userName)) {
+            return Optional.empty();
+        }
+        String key = key(userName);
+        User user = users.get(key, User.class);
+        if (nonNull(user)) {
+            return Optional.of(user);
+        }
+        long evictionsBeforeLoad = evictions.get();
+        Optional<User> loaded = userRepository.findByUserName(userName).map(UserNameCache::toUser);
+        if (loaded.isPresent()) {
+            users.put(key, loaded.get());
+            //An eviction that ran meanwhile may have come before the put, the loaded user may be stale then
+            if (evictionsBeforeLoad != evictions.get()) {
+                users.evict(key);
+            }
+        }
+        return loaded;
+    }
+
+    //Reference to the found user for incident associations, the user row is not selected again
+    public Optional<UserDetail> findReference(String userName) {
+        return find(userName).map(user -> userRepository.getById(user.getUserId()));
+    }
+
+    //Evicts the given names, after commit when called inside a transaction
+    public void evict(String... userNames) {
+        List<String> keys = new ArrayList<>(userNames.length);
+        for (String userName : userNames) {
+            if (nonNull(userName)) {
+                keys.add(key(userName));
+            }
+        }
+        AfterCommit.run(() -> {
+            evictions.incrementAndGet();
+            keys.forEach(users::evict);
+        });
+    }
+
+    public void clear() {
+        evictions.incrementAndGet();
+        users.clear();
+    }
+
+    private static String key(String userName) {
+        return userName.toLowerCase(Locale.ROOT);
+    }
+
+    private static User toUser(UserDetail userDetail) {
+        return new User.Builder().userId(userDetail.getUserId()).userName(userDetail.getUserName())
+                .firstName(userDetail.getFirstName()).lastName(userDetail.getLastName()).build();
+    }
+}
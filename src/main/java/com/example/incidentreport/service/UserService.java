@@ -1,8 +1,10 @@
 package com.example.incidentreport.service;
 
 import com.example.incidentreport.contract.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     void createUser(User user);
@@ -13,5 +15,7 @@ public interface UserService {
 
     User getUserByUserName(String userName);
 
-    List<User> getAllUsers();
+    Page<User> getAllUsers(Pageable pageable);
+
+    void forEachUser(Consumer<User> consumer);
 }
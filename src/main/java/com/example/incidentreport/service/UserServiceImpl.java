@@ -7,34 +7,56 @@ import com.example.incidentreport.utils.BadRequestException;
 import com.example.incidentreport.utils.ConflictException;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.persistence.EntityManager;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
+    private final UserNameCache userNameCache;
+
+    private final IncidentPageCache incidentPageCache;
+
+    private final ChangeTracker changeTracker;
+
+    private final EntityManager entityManager;
+
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserNameCache userNameCache,
+                           IncidentPageCache incidentPageCache, ChangeTracker changeTracker,
+                           EntityManager entityManager) {
         this.userRepository = userRepository;
+        this.userNameCache = userNameCache;
+        this.incidentPageCache = incidentPageCache;
+        this.changeTracker = changeTracker;
+        this.entityManager = entityManager;
     }
 
     @Override
+    @Transactional
     public void createUser(User user) {
       if(StringUtils.isEmpty(user.getUserName())) {
             throw new BadRequestException("Mandatory fields are missing");
         }
-        if(userRepository.existsByUserNameIgnoreCase(user.getUserName())) {
+        if(userRepository.existsByUserName(user.getUserName())) {
             throw new ConflictException(String.format("User name '%s' already exists",user.getUserName()));
         }
         userRepository.save(convertUserDetail(user));
+        userNameCache.evict(user.getUserName());
+        usersChanged();
     }
 
     @Override
+    @Transactional
     public void updateUser(String userName, User user) {
         Optional<UserDetail> optionalUser = userRepository.findByUserName(userName);
         if (optionalUser.isPresent()) {
@@ -44,17 +66,24 @@ public class UserServiceImpl implements UserService {
                     .userId(existingUser.getUserId())
                     .lastName(user.getLastName())
                     .userName(user.getUserName()).build());
+            //Both the old and the new user name may be cached when the user is renamed
+            userNameCache.evict(userName, user.getUserName());
+            usersChanged();
         } else {
             throw new BadRequestException("User does not exists");
         }
     }
 
+    //The user is loaded in the deleting transaction, a cached copy could be stale
     @Override
+    @Transactional
     public void deleteUser(String userName) {
         Optional<UserDetail> optionalUser = userRepository.findByUserName(userName);
         if (optionalUser.isPresent()) {
             UserDetail existingUser = optionalUser.get();
             userRepository.delete(existingUser);
+            userNameCache.evict(userName);
+            usersChanged();
         } else {
             throw new BadRequestException("User does not exists");
         }
@@ -62,9 +91,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getUserByUserName(String userName) {
-        Optional<UserDetail> optionalUser = userRepository.findByUserName(userName);
+        Optional<User> optionalUser = userNameCache.find(userName);
         if(optionalUser.isPresent()) {
-            return convertUser(optionalUser.get());
+            return optionalUser.get();
         }
         throw  new BadRequestException("User does not exist");
     }
@@ -72,13 +101,29 @@ public class UserServiceImpl implements UserService {
 
 
     @Override
-    public List<User> getAllUsers() {
-       List<UserDetail> userDetailsList = userRepository.findAll();
-       List<User> userList = new ArrayList<>();
-       for(UserDetail userDetail: userDetailsList) {
-           userList.add(convertUser(userDetail));
-       }
-       return  userList;
+    @Transactional(readOnly = true)
+    public Page<User> getAllUsers(Pageable pageable) {
+       return userRepository.findAll(pageable).map(this::convertUser);
+    }
+
+    //Users are read from a streamed result and detached once converted, so memory use does not grow with the
+    //number of users
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<User> consumer) {
+        try (Stream<UserDetail> userDetails = userRepository.streamAll()) {
+            userDetails.forEach(userDetail -> {
+                User user = convertUser(userDetail);
+                entityManager.detach(userDetail);
+                consumer.accept(user);
+            });
+        }
+    }
+
+    //Incident pages show user names, they are evicted with the ETags of the listings once the write commits
+    private void usersChanged() {
+        incidentPageCache.evictAll();
+        changeTracker.usersChanged();
     }
 
     private UserDetail convertUserDetail(User user) {
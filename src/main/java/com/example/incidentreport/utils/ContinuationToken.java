@@ -0,0 +1,51 @@
+package com.example.incidentreport.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Opaque keyset pagination token holding the last returned incident id and the optional status filter
+ */
+public final class ContinuationToken {
+
+    private static final String SEPARATOR = ":";
+    private static final String INVALID_TOKEN = "Invalid continuation token provided";
+
+    private final Integer statusId;
+    private final Long lastIncidentId;
+
+    public ContinuationToken(Integer statusId, Long lastIncidentId) {
+        this.statusId = statusId;
+        this.lastIncidentId = lastIncidentId;
+    }
+
+    public Integer getStatusId() {
+        return statusId;
+    }
+
+    public Long getLastIncidentId() {
+        return lastIncidentId;
+    }
+
+    public String encode() {
+        String value = (nonNull(statusId) ? statusId.toString() : "") + SEPARATOR + lastIncidentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ContinuationToken decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new BadRequestException(INVALID_TOKEN);
+            }
+            String status = value.substring(0, separatorIndex);
+            return new ContinuationToken(status.isEmpty() ? null : Integer.valueOf(status),
+                    Long.valueOf(value.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(INVALID_TOKEN);
+        }
+    }
+}
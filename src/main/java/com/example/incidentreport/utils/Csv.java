@@ -0,0 +1,42 @@
+package com.example.incidentreport.utils;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Formats CSV rows as described by RFC 4180, guarded against formula injection when opened in a spreadsheet
+ */
+public final class Csv {
+
+    private static final String SEPARATOR = ",";
+    private static final String LINE_END = "\r\n";
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    private Csv() {}
+
+    public static String row(Object... values) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(SEPARATOR);
+            }
+            row.append(escape(values[i]));
+        }
+        return row.append(LINE_END).toString();
+    }
+
+    //Values containing a separator, quote or line break are quoted with inner quotes doubled. Text starting like a
+    //spreadsheet formula is prefixed with a quote so that it is shown as text instead of evaluated
+    private static String escape(Object value) {
+        if (isNull(value)) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && FORMULA_START.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(SEPARATOR) || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.incidentreport.utils;
 
 import com.example.incidentreport.contract.ResponseResult;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -9,13 +13,27 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @ControllerAdvice
 public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
 
     private static  final String ALREADY_EXISTS="Already exists";
     private static final String BAD_REQUEST="Bad Request";
+    private static final String CONFLICTING_DATA="Request conflicts with existing data";
+    private static final String PRECONDITION_FAILED="Precondition Failed";
+    private static final String SERVICE_UNAVAILABLE="Service Unavailable";
+
+    private static final Map<String, String> CONSTRAINT_MESSAGES = new HashMap<>();
+
+    static {
+        CONSTRAINT_MESSAGES.put("uk_incident_title_hash", "Incident report by the same title already exists");
+        CONSTRAINT_MESSAGES.put("uk_incident_assigned_assignee", "Assignee already has other tasks in assigned status");
+        CONSTRAINT_MESSAGES.put("uk_user_detail_user_name", "User name already exists");
+    }
 
     @ExceptionHandler(ConflictException.class)
     public static ResponseEntity<ResponseResult> handleConflictException(ConflictException ex, WebRequest webRequest) {
@@ -25,6 +43,54 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public static ResponseEntity<ResponseResult> handleDataIntegrityViolationException(
+            DataIntegrityViolationException ex, WebRequest webRequest) {
+        return handleConflictException(new ConflictException(getConstraintMessage(ex)), webRequest);
+    }
+
+    private static String getConstraintMessage(DataIntegrityViolationException ex) {
+        if (ex.getCause() instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+            if (constraintName != null) {
+                //MySQL 8 reports the key as <table>.<constraint>
+                String name = constraintName.substring(constraintName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+                if (CONSTRAINT_MESSAGES.containsKey(name)) {
+                    return CONSTRAINT_MESSAGES.get(name);
+                }
+            }
+        }
+        return CONFLICTING_DATA;
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public static ResponseEntity<ResponseResult> handlePreconditionFailedException(PreconditionFailedException ex,
+                                                                                   WebRequest webRequest) {
+        List<String> details = new ArrayList<>();
+        details.add(ex.getLocalizedMessage());
+        ResponseResult error = new ResponseResult(PRECONDITION_FAILED, details);
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    //Version check on flush failed, another request updated the incident after it was loaded. Requests sent with
+    //If-Match reach here as PreconditionFailedException, this one made no precondition
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public static ResponseEntity<ResponseResult> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest webRequest) {
+        return handleConflictException(new ConflictException(PreconditionFailedException.CONCURRENT_MODIFICATION),
+                webRequest);
+    }
+
+    //The request executor of the async execution mode is saturated, see AsyncExecutionConfig
+    @ExceptionHandler(TaskRejectedException.class)
+    public static ResponseEntity<ResponseResult> handleTaskRejectedException(TaskRejectedException ex,
+                                                                             WebRequest webRequest) {
+        List<String> details = new ArrayList<>();
+        details.add("Too many requests in progress, retry later");
+        ResponseResult error = new ResponseResult(SERVICE_UNAVAILABLE, details);
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public static ResponseEntity<ResponseResult> handleBadRequestException(BadRequestException ex,
                                                                            WebRequest webRequest) {
@@ -0,0 +1,38 @@
+package com.example.incidentreport.utils;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Converts entity versions to strong ETags and back from If-Match headers
+ */
+public final class EntityTags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String QUOTE = "\"";
+
+    private EntityTags() {}
+
+    public static String fromVersion(Long version) {
+        return QUOTE + version + QUOTE;
+    }
+
+    //Returns null when no precondition applies, an unparsable tag can never match the current version
+    public static Long parseVersion(String ifMatch) {
+        if (isBlank(ifMatch) || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith(WEAK_PREFIX)) {
+            tag = tag.substring(WEAK_PREFIX.length());
+        }
+        if (tag.startsWith(QUOTE) && tag.endsWith(QUOTE) && tag.length() > 1) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the current incident version");
+        }
+    }
+}
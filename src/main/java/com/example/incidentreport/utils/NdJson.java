@@ -0,0 +1,57 @@
+package com.example.incidentreport.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Writes newline delimited JSON through one buffered sequence writer, the response stream sees full buffers and is
+ * flushed once after the last line
+ */
+public final class NdJson {
+
+    private static final char LINE_END = '\n';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private NdJson() {}
+
+    //Neither values nor closing the sequence flush the response stream. The object mapper must not close the target,
+    //see JsonGenerator.Feature.AUTO_CLOSE_TARGET
+    public static ObjectWriter writerFor(ObjectMapper objectMapper, Class<?> type) {
+        return objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .withRootValueSeparator(String.valueOf(LINE_END));
+    }
+
+    //forEach passes every value to the given consumer, like the forEach methods of the services
+    public static <T> void write(OutputStream outputStream, ObjectWriter writer, Consumer<Consumer<T>> forEach)
+            throws IOException {
+        BufferedOutputStream bufferedStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        AtomicBoolean written = new AtomicBoolean();
+        try (SequenceWriter sequenceWriter = writer.writeValues(bufferedStream)) {
+            forEach.accept(value -> {
+                try {
+                    sequenceWriter.write(value);
+                    written.set(true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        //The separator only goes between values, the last line is ended here
+        if (written.get()) {
+            bufferedStream.write(LINE_END);
+        }
+        bufferedStream.flush();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.incidentreport.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    //Message of a stale If-Match version and of a version check failing on flush
+    public static final String CONCURRENT_MODIFICATION = "Incident was modified by another request, reload and retry";
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
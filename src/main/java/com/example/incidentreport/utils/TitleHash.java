@@ -0,0 +1,43 @@
+package com.example.incidentreport.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * MD5 of the normalized incident title, stored in the uniquely indexed title_hash column so that titles are
+ * compared through a 16 byte key. Titles differing only by case, accents or trailing spaces are duplicates, as they
+ * are under the utf8mb4_general_ci collation of the title column. The V8 migration hashes stored titles with this
+ * class
+ */
+public final class TitleHash {
+
+    private static final Pattern TRAILING_SPACES = Pattern.compile(" +$");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TitleHash() {}
+
+    public static byte[] of(String title) {
+        if (isNull(title)) {
+            return null;
+        }
+        try {
+            return MessageDigest.getInstance("MD5").digest(normalize(title).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support MD5
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Lower cased first, lower casing may decompose a letter itself, like the dotted capital I to i and a dot above.
+    //Accents are then split from their letters and dropped
+    public static String normalize(String title) {
+        String lowerCased = TRAILING_SPACES.matcher(title).replaceFirst("").toLowerCase(Locale.ROOT);
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lowerCased, Normalizer.Form.NFD)).replaceAll("");
+    }
+}
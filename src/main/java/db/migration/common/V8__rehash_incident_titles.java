@@ -0,0 +1,81 @@
+package db.migration.common;
+
+import com.example.incidentreport.utils.TitleHash;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Hashes the stored incident titles again with TitleHash, which also folds accents and trailing spaces. V6 hashed
+ * them with the LOWER function of MySQL, which does not lower case like the application. Fails when two stored titles
+ * become duplicates, one of them has to be renamed first. Runs for every vendor
+ */
+public class V8__rehash_incident_titles extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<Object[]> changes = new ArrayList<>();
+        Map<ByteBuffer, Long> incidentIdsByHash = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet incidents = statement.executeQuery("SELECT incident_id, title, title_hash FROM incident")) {
+            while (incidents.next()) {
+                long incidentId = incidents.getLong(1);
+                byte[] titleHash = TitleHash.of(incidents.getString(2));
+                if (isNull(titleHash)) {
+                    continue;
+                }
+                Long duplicateId = incidentIdsByHash.put(ByteBuffer.wrap(titleHash), incidentId);
+                if (nonNull(duplicateId)) {
+                    throw new FlywayException(String.format("Titles of incidents %d and %d only differ by case, " +
+                            "accents or trailing spaces, rename one of them", duplicateId, incidentId));
+                }
+                if (!Arrays.equals(titleHash, incidents.getBytes(3))) {
+                    changes.add(new Object[]{titleHash, incidentId});
+                }
+            }
+        }
+        //Changed hashes are cleared first, a new hash may still be the old hash of another incident
+        update(connection, "UPDATE incident SET title_hash = NULL WHERE incident_id = ?", changes, false);
+        update(connection, "UPDATE incident SET title_hash = ? WHERE incident_id = ?", changes, true);
+    }
+
+    private static void update(Connection connection, String sql, List<Object[]> changes, boolean withHash)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int batched = 0;
+            for (Object[] change : changes) {
+                if (withHash) {
+                    statement.setBytes(1, (byte[]) change[0]);
+                    statement.setLong(2, (Long) change[1]);
+                } else {
+                    statement.setLong(1, (Long) change[1]);
+                }
+                statement.addBatch();
+                if (++batched % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (batched % BATCH_SIZE != 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+}
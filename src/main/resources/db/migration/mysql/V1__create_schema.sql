@@ -0,0 +1,25 @@
+-- Schema previously generated by hibernate ddl-auto=create
+CREATE TABLE hibernate_sequence (
+    next_val BIGINT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO hibernate_sequence VALUES (1);
+
+CREATE TABLE user_detail (
+    user_id    BIGINT NOT NULL,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    user_name  VARCHAR(255),
+    PRIMARY KEY (user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE incident (
+    incident_id BIGINT NOT NULL,
+    status_id   INTEGER,
+    title       VARCHAR(255),
+    assignee_id BIGINT,
+    user_id     BIGINT,
+    PRIMARY KEY (incident_id),
+    CONSTRAINT fk_incident_assignee FOREIGN KEY (assignee_id) REFERENCES user_detail (user_id),
+    CONSTRAINT fk_incident_creator FOREIGN KEY (user_id) REFERENCES user_detail (user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
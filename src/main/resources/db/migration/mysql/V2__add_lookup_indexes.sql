@@ -0,0 +1,12 @@
+-- user_name is compared case insensitively through its _ci collation, so the unique index also serves
+-- existsByUserNameIgnoreCase without wrapping the column in upper()
+ALTER TABLE user_detail
+    MODIFY user_name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
+    ADD CONSTRAINT uk_user_detail_user_name UNIQUE (user_name);
+
+-- (assignee_id, status_id) serves the assigned workload check and the assignee foreign key
+ALTER TABLE incident
+    MODIFY title VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci,
+    ADD CONSTRAINT uk_incident_title UNIQUE (title),
+    ADD INDEX idx_incident_assignee_status (assignee_id, status_id),
+    ADD INDEX idx_incident_status (status_id);
@@ -0,0 +1,5 @@
+-- Holds the assignee only while the incident is in assigned status (2), the unique index then allows a single
+-- assigned incident per assignee and makes the rule atomic with the insert or update
+ALTER TABLE incident
+    ADD COLUMN assigned_assignee_id BIGINT AS (CASE WHEN status_id = 2 THEN assignee_id END) STORED,
+    ADD CONSTRAINT uk_incident_assigned_assignee UNIQUE (assigned_assignee_id);
@@ -0,0 +1,15 @@
+-- Replaces the shared hibernate_sequence row with a sequence table per entity, ids are handed out in blocks
+-- by the pooled-lo optimizer so next_val holds the first id of the next block
+CREATE TABLE incident_seq (
+    next_val BIGINT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO incident_seq SELECT COALESCE(MAX(incident_id), 0) + 1 FROM incident;
+
+CREATE TABLE user_detail_seq (
+    next_val BIGINT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO user_detail_seq SELECT COALESCE(MAX(user_id), 0) + 1 FROM user_detail;
+
+DROP TABLE hibernate_sequence;
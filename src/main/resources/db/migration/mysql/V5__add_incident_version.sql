@@ -0,0 +1,3 @@
+-- Optimistic locking version of incident, exposed to clients as ETag
+ALTER TABLE incident
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
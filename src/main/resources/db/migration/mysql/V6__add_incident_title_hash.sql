@@ -0,0 +1,10 @@
+-- Titles are unique by the MD5 of their lower cased text, see TitleHash. The 16 byte key replaces the unique index
+-- on the title itself, whose keys took up to 1020 bytes
+ALTER TABLE incident
+    ADD COLUMN title_hash VARBINARY(16);
+
+UPDATE incident SET title_hash = UNHEX(MD5(LOWER(title)));
+
+ALTER TABLE incident
+    DROP INDEX uk_incident_title,
+    ADD CONSTRAINT uk_incident_title_hash UNIQUE (title_hash);
@@ -0,0 +1,36 @@
+-- Committed writes per table, the ETags of the incident and user listings are built from the sums, see ChangeTracker.
+-- Triggers bump the counters in the writing transaction, so writes of every instance and of the user sync count.
+-- Each table has 16 slots picked by connection id, concurrent writers then rarely wait on the same counter row.
+-- Creating the triggers needs the TRIGGER privilege, and log_bin_trust_function_creators with binary logging on
+CREATE TABLE table_change (
+    table_name VARCHAR(64) NOT NULL,
+    slot       INTEGER NOT NULL,
+    changes    BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (table_name, slot)
+);
+
+INSERT INTO table_change (table_name, slot)
+SELECT tables.table_name, slots.slot
+FROM (SELECT 'incident' AS table_name UNION ALL SELECT 'user_detail') tables
+    CROSS JOIN (SELECT 0 AS slot UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+        UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9
+        UNION ALL SELECT 10 UNION ALL SELECT 11 UNION ALL SELECT 12 UNION ALL SELECT 13 UNION ALL SELECT 14
+        UNION ALL SELECT 15) slots;
+
+CREATE TRIGGER trg_incident_insert_change AFTER INSERT ON incident FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'incident' AND slot = CONNECTION_ID() % 16;
+
+CREATE TRIGGER trg_incident_update_change AFTER UPDATE ON incident FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'incident' AND slot = CONNECTION_ID() % 16;
+
+CREATE TRIGGER trg_incident_delete_change AFTER DELETE ON incident FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'incident' AND slot = CONNECTION_ID() % 16;
+
+CREATE TRIGGER trg_user_detail_insert_change AFTER INSERT ON user_detail FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'user_detail' AND slot = CONNECTION_ID() % 16;
+
+CREATE TRIGGER trg_user_detail_update_change AFTER UPDATE ON user_detail FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'user_detail' AND slot = CONNECTION_ID() % 16;
+
+CREATE TRIGGER trg_user_detail_delete_change AFTER DELETE ON user_detail FOR EACH ROW
+    UPDATE table_change SET changes = changes + 1 WHERE table_name = 'user_detail' AND slot = CONNECTION_ID() % 16;
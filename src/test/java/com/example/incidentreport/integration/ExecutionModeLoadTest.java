@@ -0,0 +1,235 @@
+package com.example.incidentreport.integration;
+
+import com.example.incidentreport.IncidentReportApplication;
+import com.example.incidentreport.contract.User;
+import com.example.incidentreport.repository.IncidentRepository;
+import com.example.incidentreport.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME;
+import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
+import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
+import static java.util.Objects.nonNull;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Load test of the user lookup and of the incident listing, seek and create endpoints with 50 ms of simulated latency
+ * on every JDBC statement and more concurrent clients than Tomcat worker threads. The latency is added while the
+ * statement holds its pooled connection, so the wait for the Hikari pool is reported with the throughput. Incident
+ * pages are not cached so that every listing reaches the database. Runs the load once per execution mode, platform
+ * and async and on JDK 21 or later virtual, and prints the modes side by side. Only runs with -Dperf=true
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ExecutionModeLoadTest.Platform.class, ExecutionModeLoadTest.Async.class,
+        ExecutionModeLoadTest.Virtual.class})
+public class ExecutionModeLoadTest {
+
+    private static final long SIMULATED_LATENCY_MILLIS = 50;
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS = 10_000;
+    private static final String CONNECTION_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private static final Map<String, String> RESULTS = new LinkedHashMap<>();
+
+    @BeforeClass
+    public static void perfOnly() {
+        Assume.assumeTrue("Load tests run with -Dperf=true", Boolean.getBoolean("perf"));
+    }
+
+    @AfterClass
+    public static void printResults() {
+        System.out.printf("%d requests by %d clients, %d ms per statement%n", REQUESTS, CLIENTS,
+                SIMULATED_LATENCY_MILLIS);
+        System.out.println("mode          elapsed ms   requests/s   pool wait mean ms   pool wait max ms");
+        RESULTS.forEach((mode, result) -> System.out.printf("%-12s %s%n", mode, result));
+    }
+
+    @TestPropertySource(properties = "incidentreport.execution.mode=platform")
+    public static class Platform extends ModeLoadTest {
+    }
+
+    @TestPropertySource(properties = "incidentreport.execution.mode=async")
+    public static class Async extends ModeLoadTest {
+    }
+
+    @TestPropertySource(properties = "incidentreport.execution.mode=virtual")
+    public static class Virtual extends ModeLoadTest {
+
+        @BeforeClass
+        public static void virtualThreadsOnly() {
+            Assume.assumeTrue("Virtual threads need JDK 21 or later", Arrays.stream(Executors.class.getMethods())
+                    .anyMatch(method -> method.getName().equals("newVirtualThreadPerTaskExecutor")));
+        }
+    }
+
+    @RunWith(SpringRunner.class)
+    @SpringBootTest(classes = {IncidentReportApplication.class, LatencyConfig.class},
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"incidentreport.incident-page-cache.expire-after-write=0s",
+                    "server.tomcat.threads.max=50"})
+    public abstract static class ModeLoadTest {
+
+        @LocalServerPort
+        private int port;
+        @Value("${incidentreport.execution.mode}")
+        private String mode;
+        @Autowired
+        private UserService userService;
+        @Autowired
+        private IncidentRepository incidentRepository;
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Before
+        public void createUser() {
+            userService.createUser(new User.Builder().userName(VALID_USERNAME).firstName(VALID_FIRSTNAME)
+                    .lastName(VALID_LASTNAME).build());
+        }
+
+        @Test
+        public void givenSlowDatabase_whenManyConcurrentClients_thenThroughputAndPoolWaitReported()
+                throws Exception {
+            String baseUrl = "http://localhost:" + port;
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            List<Callable<Integer>> requests = new ArrayList<>();
+            List<Integer> expectedStatuses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                switch (i % 4) {
+                    case 0:
+                        requests.add(() -> send("GET", baseUrl + "/user/" + VALID_USERNAME, null));
+                        expectedStatuses.add(200);
+                        break;
+                    case 1:
+                        requests.add(() -> send("GET", baseUrl + "/incidents?page=0&size=20", null));
+                        expectedStatuses.add(200);
+                        break;
+                    case 2:
+                        requests.add(() -> send("GET", baseUrl + "/incidents/seek?size=20", null));
+                        expectedStatuses.add(200);
+                        break;
+                    default:
+                        requests.add(() -> send("POST", baseUrl + "/incident", String.format(
+                                "{\"title\":\"Load %d\",\"creator\":\"%s\"}", request, VALID_USERNAME)));
+                        expectedStatuses.add(202);
+                }
+            }
+            Timer connectionAcquire = meterRegistry.get(CONNECTION_ACQUIRE_TIMER).timer();
+            long acquiresBefore = connectionAcquire.count();
+            double acquireMillisBefore = connectionAcquire.totalTime(TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            List<Future<Integer>> statuses = clients.invokeAll(requests);
+            long elapsedNanos = System.nanoTime() - start;
+            clients.shutdown();
+
+            for (int i = 0; i < statuses.size(); i++) {
+                assertEquals(expectedStatuses.get(i), statuses.get(i).get());
+            }
+            long acquires = connectionAcquire.count() - acquiresBefore;
+            double acquireMillis = connectionAcquire.totalTime(TimeUnit.MILLISECONDS) - acquireMillisBefore;
+            RESULTS.put(mode, String.format("%10d %12.0f %19.1f %18.1f",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), REQUESTS / (elapsedNanos / 1e9),
+                    acquires == 0 ? 0 : acquireMillis / acquires, connectionAcquire.max(TimeUnit.MILLISECONDS)));
+        }
+
+        @After
+        public void deleteUser() {
+            //One statement, deleting the created incidents one by one would pay the simulated latency for each
+            incidentRepository.deleteAllInBatch();
+            userService.deleteUser(VALID_USERNAME);
+        }
+    }
+
+    private static int send(String method, String url, String json) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (nonNull(json)) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            while (nonNull(body) && body.read() != -1) {
+                //Drain the body so the connection is reused
+            }
+        }
+        return status;
+    }
+
+    @TestConfiguration
+    static class LatencyConfig {
+
+        //Delays every statement as a slow database would, while the statement holds its pooled connection
+        @Bean
+        public static BeanPostProcessor slowDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                            .listener(new QueryExecutionListener() {
+                                @Override
+                                public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                                    try {
+                                        Thread.sleep(SIMULATED_LATENCY_MILLIS);
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                }
+
+                                @Override
+                                public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                                }
+                            })
+                            .build();
+                }
+            };
+        }
+    }
+}
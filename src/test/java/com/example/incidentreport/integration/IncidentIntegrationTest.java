@@ -1,11 +1,14 @@
 package com.example.incidentreport.integration;
 
 import com.example.incidentreport.IncidentReportApplication;
+import com.example.incidentreport.config.SqlStatementCounter;
 import com.example.incidentreport.contract.IncidentReport;
 import com.example.incidentreport.contract.User;
 import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.model.UserDetail;
 import com.example.incidentreport.repository.IncidentRepository;
 import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.service.UserNameCache;
 import io.restassured.RestAssured;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
@@ -13,6 +16,8 @@ import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import org.apache.http.HttpHeaders;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,7 +27,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.event.annotation.AfterTestClass;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 
 import static com.example.incidentreport.util.TestConstants.INVALID_INCIDENT_ID;
 import static com.example.incidentreport.util.TestConstants.INVALID_USERNAME;
@@ -30,6 +39,7 @@ import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_INCIDENT_TITLE;
 import static com.example.incidentreport.util.TestConstants.VALID_INCIDENT_TITLE_1;
+import static com.example.incidentreport.util.SqlStatementAssert.assertMaxStatements;
 import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
@@ -39,18 +49,29 @@ import static org.apache.http.HttpStatus.SC_ACCEPTED;
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
 import static org.apache.http.HttpStatus.SC_CONFLICT;
 import static org.apache.http.HttpStatus.SC_OK;
+import static org.apache.http.HttpStatus.SC_PRECONDITION_FAILED;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = {IncidentReportApplication.class},
-        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        //Incidents are cleaned up through the repository, cached pages would outlive them
+        properties = "incidentreport.incident-page-cache.expire-after-write=0s")
 public class IncidentIntegrationTest {
 
     @Autowired
     private IncidentRepository incidentRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserNameCache userNameCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
 
     @Before
     public void createUsers() {
@@ -79,7 +100,8 @@ public class IncidentIntegrationTest {
         //Given
         IncidentReport incidentReport = new IncidentReport.Builder().creator(VALID_USERNAME)
                 .assignee(VALID_USERNAME).title(VALID_INCIDENT_TITLE).build();
-        Response response = postIncidentRequest(incidentReport);
+        //User lookup, title probe, id block allocation and insert
+        Response response = assertMaxStatements(sqlStatementCounter, 5, () -> postIncidentRequest(incidentReport));
         //Then
         response.then().statusCode(SC_ACCEPTED).body("message", Matchers.is("Incident Created"));
     }
@@ -107,6 +129,19 @@ public class IncidentIntegrationTest {
                 Matchers.contains("Incident report by the same title already exists"));
     }
 
+    @Test
+    public void givenTitleDifferingByCaseAccentsAndTrailingSpaces_whenPostRequest_thenConflictException() {
+        //Given
+        postIncidentRequest(new IncidentReport.Builder().creator(VALID_USERNAME)
+                .title("Caf\u00e9 " + VALID_INCIDENT_TITLE).build());
+        IncidentReport incidentReport = new IncidentReport.Builder().creator(VALID_USERNAME_1)
+                .title("CAFE " + VALID_INCIDENT_TITLE.toLowerCase(Locale.ROOT) + "  ").build();
+        Response response = postIncidentRequest(incidentReport);
+        //Then
+        response.then().statusCode(SC_CONFLICT).body("details",
+                Matchers.contains("Incident report by the same title already exists"));
+    }
+
 
     @Test
     public void givenIncidentWithInvalidCreator_whenPostRequest_thenBadRequest() {
@@ -143,6 +178,25 @@ public class IncidentIntegrationTest {
                 Matchers.contains("Assignee already has other tasks in assigned status"));
     }
 
+    @Test
+    public void givenAssigneeHavingAssignedIncident_whenPatchRequestAssigns_thenConflict() {
+        //Given
+        createIncidentWithDifferentCreatorAndAssignee();
+        postIncidentRequest(new IncidentReport.Builder().creator(VALID_USERNAME)
+                .title(VALID_INCIDENT_TITLE_1).build());
+        int incidentId = (int)((LinkedHashMap<String,Object>)getHeader()
+                .when().get("/incidents?status=" + IncidentStatus.NEW.getName()).getBody().jsonPath()
+                .getList("content").get(0)).get("incidentId");
+
+        IncidentReport incidentReport = new IncidentReport.Builder().assignee(VALID_USERNAME_1)
+                .status(IncidentStatus.ASSIGNED.getName()).build();
+        Response response = patchIncidentRequest(incidentReport,VALID_USERNAME,incidentId);
+
+        //Then
+        response.then().statusCode(SC_CONFLICT).body("details", Matchers.contains(
+                "Assignee already has other tasks in assigned status"));
+    }
+
     @Test
     public void givenIncidents_whenGetRequest_thenRetrieveAllIncidents() {
         //Given
@@ -153,9 +207,10 @@ public class IncidentIntegrationTest {
                 .assignee(VALID_USERNAME_1).title(VALID_INCIDENT_TITLE_1).build();
         postIncidentRequest(incidentReport2);
 
-        getHeader()
+        //Change counters for the ETag and the page select, the count is skipped for a first page that is not full
+        assertMaxStatements(sqlStatementCounter, 3, () -> getHeader()
                 //When
-                .when().get("/incidents")
+                .when().get("/incidents"))
                 //Then
                 .then()
                 .statusCode(SC_OK).body("size", greaterThan(0));
@@ -179,6 +234,92 @@ public class IncidentIntegrationTest {
                 .statusCode(SC_OK).body("size", greaterThan(2));
     }
 
+    @Test
+    public void givenIncidentsWithDifferentUsers_whenGetRequest_thenUsersFetchedWithIncidents() {
+        //Given
+        IncidentReport incidentReport1 = new IncidentReport.Builder().creator(VALID_USERNAME)
+                .assignee(VALID_USERNAME_1).title(VALID_INCIDENT_TITLE).build();
+        postIncidentRequest(incidentReport1);
+        IncidentReport incidentReport2 = new IncidentReport.Builder().creator(VALID_USERNAME_1)
+                .title(VALID_INCIDENT_TITLE_1).build();
+        postIncidentRequest(incidentReport2);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        getHeader()
+                //When
+                .when().get("/incidents?page=0&size=1")
+                //Then
+                .then()
+                .statusCode(SC_OK).body("content.size()", Matchers.is(1));
+        //One select for the page including creator and assignee, one count query
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    public void givenIncidents_whenExportRequest_thenOneIncidentPerLine() {
+        //Given
+        createIncident();
+        postIncidentRequest(new IncidentReport.Builder().creator(VALID_USERNAME_1)
+                .title(VALID_INCIDENT_TITLE_1).build());
+
+        //When
+        Response response = given().when().get("/incidents/export?format=ndjson");
+
+        //Then
+        response.then().statusCode(SC_OK);
+        String[] lines = response.getBody().asString().split("\n");
+        assertThat(lines.length, Matchers.is(2));
+        assertThat(lines[0], Matchers.containsString(VALID_INCIDENT_TITLE));
+        assertThat(lines[1], Matchers.containsString(VALID_INCIDENT_TITLE_1));
+    }
+
+    @Test
+    public void givenIncidentsOfFewUsers_whenListed_thenNoUserLoaded() {
+        //Given
+        int userCount = 10;
+        int incidentCount = 1000;
+        List<String> userNames = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            String userName = VALID_USERNAME + "-cached-" + i;
+            createUser(userName, VALID_FIRSTNAME, VALID_LASTNAME);
+            userNames.add(userName);
+        }
+        List<IncidentReport> incidentReports = new ArrayList<>();
+        for (int i = 0; i < incidentCount; i++) {
+            incidentReports.add(new IncidentReport.Builder().creator(userNames.get(i % userCount))
+                    .title(VALID_INCIDENT_TITLE + "-cached-" + i).build());
+        }
+        getHeader().body(incidentReports).when().post("/incidents/bulk").then().statusCode(SC_ACCEPTED);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //When, the projection selects the user names with the page, the count query and the change counters for the
+        //ETag are the only other statements
+        assertMaxStatements(sqlStatementCounter, 3, () -> getHeader()
+                .when().get("/incidents?page=0&size=" + incidentCount))
+                //Then
+                .then().statusCode(SC_OK).body("content.size()", Matchers.is(incidentCount));
+        assertThat(statistics.getEntityStatistics(UserDetail.class.getName()).getLoadCount(), Matchers.is(0L));
+    }
+
+    @Test
+    public void givenManyIncidents_whenBulkPostRequest_thenInsertedInBatches() {
+        //Given
+        int incidentCount = 200;
+        List<IncidentReport> bulkIncidentReports = new ArrayList<>();
+        for (int i = 0; i < incidentCount; i++) {
+            bulkIncidentReports.add(new IncidentReport.Builder().creator(VALID_USERNAME)
+                    .title(VALID_INCIDENT_TITLE + "-bulk-" + i).build());
+        }
+        //User, title and assignee lookups, up to 5 id blocks of 50 (select and update each) and 5 insert batches,
+        //where single posts would send an insert per incident
+        assertMaxStatements(sqlStatementCounter, 18, () -> getHeader().body(bulkIncidentReports)
+                //When
+                .when().post("/incidents/bulk"))
+                //Then
+                .then().statusCode(SC_ACCEPTED).body("status", Matchers.everyItem(Matchers.is(201)));
+    }
 
     @Test
     public void givenIncidentWithInvalidAssignee_whenPatchRequest_thenBadRequest() {
@@ -278,7 +419,9 @@ public class IncidentIntegrationTest {
 
         IncidentReport incidentReport = new IncidentReport.Builder()
                 .assignee(VALID_USERNAME_1).title(VALID_INCIDENT_TITLE).build();
-        Response response = patchIncidentRequest(incidentReport,VALID_USERNAME,incidentId);
+        //Incident select with its users and at most one update
+        Response response = assertMaxStatements(sqlStatementCounter, 2,
+                () -> patchIncidentRequest(incidentReport,VALID_USERNAME,incidentId));
 
         //Then
         response.then().statusCode(SC_ACCEPTED).body("message",Matchers.is("Incident Report Updated"));
@@ -286,6 +429,30 @@ public class IncidentIntegrationTest {
 
 
 
+    @Test
+    public void givenStaleETag_whenPatchRequest_thenPreconditionFailed() {
+
+        //Given
+        createIncidentWithDifferentCreatorAndAssignee();
+        LinkedHashMap<String,Object> incident = (LinkedHashMap<String,Object>)getHeader()
+                .when().get("/incidents").getBody().jsonPath().getList("content").get(0);
+        int incidentId = (int)incident.get("incidentId");
+        String eTag = "\"" + incident.get("version") + "\"";
+
+        IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE_1).build();
+        Response firstResponse = getHeader().header(HttpHeaders.IF_MATCH, eTag).body(incidentReport)
+                .when().patch(String.format("/incident?incident_id=%d&loggedin_user=%s",incidentId,VALID_USERNAME));
+        firstResponse.then().statusCode(SC_ACCEPTED).header(HttpHeaders.ETAG, Matchers.not(eTag));
+
+        //When
+        Response response = getHeader().header(HttpHeaders.IF_MATCH, eTag).body(incidentReport)
+                .when().patch(String.format("/incident?incident_id=%d&loggedin_user=%s",incidentId,VALID_USERNAME_1));
+
+        //Then
+        response.then().statusCode(SC_PRECONDITION_FAILED).body("details", Matchers.contains(
+                "Incident was modified by another request, reload and retry"));
+    }
+
     @Test
     public void givenIncidentWithInvalidUser_whenDeleteRequest_thenBadRequest() {
         //Given
@@ -338,7 +505,9 @@ public class IncidentIntegrationTest {
 
         IncidentReport incidentReport = new IncidentReport.Builder()
                 .assignee(VALID_USERNAME_1).title(VALID_INCIDENT_TITLE).build();
-        Response response = deleteIncidentRequest(incidentReport,VALID_USERNAME,incidentId);
+        //Incident select with its users and the delete
+        Response response = assertMaxStatements(sqlStatementCounter, 2,
+                () -> deleteIncidentRequest(incidentReport,VALID_USERNAME,incidentId));
 
         //Then
         response.then().statusCode(SC_ACCEPTED).body("message",Matchers.is("Incident Report Deleted"));
@@ -377,6 +546,8 @@ public class IncidentIntegrationTest {
     @AfterTestClass
     public void cleanUsers() {
         userRepository.deleteAll();
+        //Users deleted through the repository are not evicted by UserServiceImpl
+        userNameCache.clear();
     }
 
     @After
@@ -0,0 +1,125 @@
+package com.example.incidentreport.integration;
+
+import com.example.incidentreport.IncidentReportApplication;
+import com.example.incidentreport.util.PerfDataGenerator;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bytes allocated per GET /incidents?status=closed&size=20 with the incident table seeded at growing sizes, the
+ * gc.alloc.rate.norm of the JMH GC profiler: allocations of every thread of the JVM divided by the requests sent.
+ * A page request loads one page whatever the size of the table, so the figure stays flat. Runs against the MySQL
+ * database of the integration tests, an embedded database would add its own per row allocations to the figure.
+ * Only runs with -Dperf=true
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {IncidentReportApplication.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        //Every request loads its page from the database
+        properties = "incidentreport.incident-page-cache.expire-after-write=0s")
+public class ListingAllocationTest {
+
+    private static final int[] TABLE_SIZES = {10_000, 100_000, 300_000};
+    private static final int USERS = 1000;
+    private static final int WARMUP_REQUESTS = 1000;
+    private static final int REQUESTS = 2000;
+    //Longer ids make slightly longer responses
+    private static final double MAX_GROWTH = 1.2;
+    private static final String LISTING = "/incidents?status=closed&size=20";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeClass
+    public static void perfOnly() {
+        Assume.assumeTrue("Load tests run with -Dperf=true", Boolean.getBoolean("perf"));
+    }
+
+    @Test
+    public void givenGrowingIncidentTable_whenListingClosedPage_thenAllocationPerRequestStaysFlat() throws Exception {
+        String url = "http://localhost:" + port + LISTING;
+        Map<Integer, Long> bytesPerRequest = new LinkedHashMap<>();
+        for (int tableSize : TABLE_SIZES) {
+            deleteRows();
+            new PerfDataGenerator(jdbcTemplate, 42L).generate(USERS, tableSize);
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                assertEquals(200, get(url));
+            }
+            Map<Long, Long> before = allocatedBytes();
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(200, get(url));
+            }
+            bytesPerRequest.put(tableSize, allocatedSince(before) / REQUESTS);
+        }
+
+        System.out.println("Incidents    bytes allocated per " + LISTING);
+        bytesPerRequest.forEach((tableSize, bytes) -> System.out.printf("%9d    %d%n", tableSize, bytes));
+        long smallest = bytesPerRequest.get(TABLE_SIZES[0]);
+        long largest = bytesPerRequest.get(TABLE_SIZES[TABLE_SIZES.length - 1]);
+        assertTrue(String.format("%d bytes per request with %d incidents, %d with %d", largest,
+                TABLE_SIZES[TABLE_SIZES.length - 1], smallest, TABLE_SIZES[0]), largest <= smallest * MAX_GROWTH);
+    }
+
+    //Allocated bytes per live thread, Tomcat workers outlive the measurement
+    private static Map<Long, Long> allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] threadIds = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> allocated = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(threadIds[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    //Threads started since the snapshot count in full
+    private static long allocatedSince(Map<Long, Long> before) {
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+            allocated += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return allocated;
+    }
+
+    private static int get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            while (nonNull(body) && body.read() != -1) {
+                //Drain the body so the connection is reused
+            }
+        }
+        return status;
+    }
+
+    @After
+    public void deleteRows() {
+        jdbcTemplate.update("delete from incident");
+        jdbcTemplate.update("delete from user_detail");
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.incidentreport.integration;
+
+import com.example.incidentreport.IncidentReportApplication;
+import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.User;
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.service.IncidentServiceImpl;
+import com.example.incidentreport.util.LoadDriver;
+import com.example.incidentreport.util.PerfDataGenerator;
+import com.example.incidentreport.util.PerfDataGenerator.SeededData;
+import com.example.incidentreport.util.PerfDataGenerator.SeededIncident;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Load test of every incident and user endpoint against an embedded H2 database in MySQL mode, seeded by
+ * PerfDataGenerator. Runs with mvn test -Pperf, sizes are set with -Dperf.users, -Dperf.incidents,
+ * -Dperf.concurrency and -Dperf.requests (per endpoint, exports and streams send a hundredth of them)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {IncidentReportApplication.class, PerfLoadTest.H2Config.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("perf")
+public class PerfLoadTest {
+
+    private static final int USERS = Integer.getInteger("perf.users", 1000);
+    private static final int INCIDENTS = Integer.getInteger("perf.incidents", 100_000);
+    private static final int CONCURRENCY = Integer.getInteger("perf.concurrency", 32);
+    private static final int REQUESTS = Integer.getInteger("perf.requests", 2000);
+    private static final int BULK_SIZE = 10;
+
+    private static final String[] STATUSES = {IncidentStatus.NEW.getName(), IncidentStatus.ASSIGNED.getName(),
+            IncidentStatus.CLOSED.getName()};
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private IncidentServiceImpl incidentService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeClass
+    public static void perfOnly() {
+        Assume.assumeTrue("Load tests run with -Pperf or -Dperf=true", Boolean.getBoolean("perf"));
+    }
+
+    @Test
+    public void givenSeededDatabase_whenEveryEndpointUnderLoad_thenLatenciesReported() throws Exception {
+        SeededData data = new PerfDataGenerator(jdbcTemplate, 42L).generate(USERS, INCIDENTS);
+        //Seeded rows bypass the service, the title filter is warmed again to see them
+        incidentService.warmUpTitleFilter();
+        List<String> userNames = data.getUserNames();
+        List<SeededIncident> newIncidents = data.getIncidents(IncidentStatus.NEW);
+        List<SeededIncident> closedIncidents = data.getIncidents(IncidentStatus.CLOSED);
+        int streams = Math.max(1, REQUESTS / 100);
+
+        List<LoadDriver.Result> results = new ArrayList<>();
+        try (LoadDriver driver = new LoadDriver("http://localhost:" + port, CONCURRENCY)) {
+            results.add(driver.run("GET /incidents", REQUESTS, i -> driver.get(String.format(
+                    "/incidents?status=%s&page=%d&size=20", STATUSES[i % STATUSES.length], i % 100))));
+            results.add(driver.run("GET /incidents/seek", REQUESTS, i -> driver.get(
+                    "/incidents/seek?size=20&status=" + STATUSES[i % STATUSES.length])));
+            results.add(driver.run("GET /incidents/export", streams, i -> driver.get(
+                    "/incidents/export?format=" + (i % 2 == 0 ? "ndjson" : "csv"))));
+            results.add(driver.run("GET /user/{userName}", REQUESTS, i -> driver.get(
+                    "/user/" + userNames.get(i % userNames.size()))));
+            results.add(driver.run("GET /users", REQUESTS, i -> driver.get(
+                    String.format("/users?page=%d&size=20", i % 50))));
+            results.add(driver.run("GET /users/stream", streams, i -> driver.get("/users/stream")));
+
+            results.add(driver.run("POST /user", REQUESTS, i -> driver.post("/user", json(
+                    new User.Builder().userName("load-user-" + i).firstName("Load").lastName("User").build()))));
+            results.add(driver.run("PUT /user/{userName}", REQUESTS, i -> driver.put("/user/load-user-" + i, json(
+                    new User.Builder().userName("load-user-" + i).firstName("Updated").lastName("User").build()))));
+            results.add(driver.run("POST /incident", REQUESTS, i -> driver.post("/incident", json(
+                    new IncidentReport.Builder().title("Load incident " + i)
+                            .creator(userNames.get(i % userNames.size())).build()))));
+            results.add(driver.run("POST /incidents/bulk", Math.max(1, REQUESTS / BULK_SIZE), i -> {
+                List<IncidentReport> incidentReports = new ArrayList<>(BULK_SIZE);
+                for (int j = 0; j < BULK_SIZE; j++) {
+                    incidentReports.add(new IncidentReport.Builder().title("Load bulk incident " + i + "-" + j)
+                            .creator(userNames.get((i + j) % userNames.size())).build());
+                }
+                return driver.post("/incidents/bulk", json(incidentReports));
+            }));
+            results.add(driver.run("PATCH /incident", Math.min(REQUESTS, newIncidents.size()), i -> {
+                SeededIncident incident = newIncidents.get(i);
+                return driver.patch(String.format("/incident?incident_id=%d&loggedin_user=%s",
+                        incident.getIncidentId(), incident.getCreator()),
+                        json(new IncidentReport.Builder().title("Updated incident " + i).build()));
+            }));
+            results.add(driver.run("DELETE /incident", Math.min(REQUESTS, closedIncidents.size()), i -> {
+                SeededIncident incident = closedIncidents.get(i);
+                return driver.delete(String.format("/incident?incident_id=%d&loggedin_user=%s",
+                        incident.getIncidentId(), incident.getCreator()));
+            }));
+            results.add(driver.run("DELETE /user/{userName}", REQUESTS, i -> driver.delete("/user/load-user-" + i)));
+        }
+
+        System.out.printf("%d users, %d incidents, %d concurrent clients%n", USERS, INCIDENTS, CONCURRENCY);
+        System.out.println(LoadDriver.Result.HEADER);
+        for (LoadDriver.Result result : results) {
+            System.out.println(result);
+        }
+        for (LoadDriver.Result result : results) {
+            assertEquals(result.getScenario(), 0, result.getServerErrors());
+        }
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class H2Config {
+
+        //MySQL streams results with fetch size Integer.MIN_VALUE, which H2 rejects. H2 reads results lazily anyway,
+        //so negative fetch sizes are dropped on the way to the driver
+        @Bean
+        public static BeanPostProcessor ignoreNegativeFetchSize() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? ignoreNegativeFetchSize(bean, DataSource.class) : bean;
+                }
+            };
+        }
+
+        private static Object ignoreNegativeFetchSize(Object target, Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().equals("setFetchSize") && (Integer) args[0] < 0) {
+                    return null;
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                Class<?> returnType = method.getReturnType();
+                if (result != null && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType))) {
+                    return ignoreNegativeFetchSize(result, returnType);
+                }
+                return result;
+            });
+        }
+    }
+}
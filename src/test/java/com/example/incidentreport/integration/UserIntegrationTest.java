@@ -1,8 +1,10 @@
 package com.example.incidentreport.integration;
 
 import com.example.incidentreport.IncidentReportApplication;
+import com.example.incidentreport.config.SqlStatementCounter;
 import com.example.incidentreport.contract.User;
 import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.service.UserNameCache;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import org.apache.http.HttpHeaders;
@@ -23,12 +25,15 @@ import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME_1;
+import static com.example.incidentreport.util.SqlStatementAssert.assertMaxStatements;
 import static io.restassured.RestAssured.given;
 import static org.apache.http.HttpStatus.SC_ACCEPTED;
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
 import static org.apache.http.HttpStatus.SC_CONFLICT;
 import static org.apache.http.HttpStatus.SC_OK;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RunWith(SpringRunner.class)
@@ -38,6 +43,10 @@ public class UserIntegrationTest {
 
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserNameCache userNameCache;
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
 
     @Test
     public void givenUser_whenPostRequest_thenUserCreated() {
@@ -87,11 +96,39 @@ public class UserIntegrationTest {
         createUser();
 
         User userPutRequest = getUser(VALID_USERNAME, VALID_FIRSTNAME_1,VALID_LASTNAME);
-        Response response = putUserRequest(userPutRequest);
+        //User lookup, merge select and update
+        Response response = assertMaxStatements(sqlStatementCounter, 3, () -> putUserRequest(userPutRequest));
         //Then
         response.then().statusCode(SC_ACCEPTED).body("message", Matchers.is("User Updated"));
     }
 
+    @Test
+    public void givenCachedUser_whenPutRequest_thenUpdatedUserReturned() {
+        //Given
+        createUser();
+        getUser(VALID_USERNAME).then().statusCode(SC_OK).body("firstName", Matchers.is(VALID_FIRSTNAME));
+
+        User userPutRequest = getUser(VALID_USERNAME, VALID_FIRSTNAME_1,VALID_LASTNAME);
+        putUserRequest(userPutRequest);
+        Response response = getUser(VALID_USERNAME);
+
+        //Then
+        response.then().statusCode(SC_OK).body("firstName", Matchers.is(VALID_FIRSTNAME_1));
+    }
+
+    @Test
+    public void givenCachedUser_whenDeleteRequest_thenUserNotReturned() {
+        //Given
+        createUser();
+        getUser(VALID_USERNAME).then().statusCode(SC_OK);
+
+        deleteUserRequest(VALID_USERNAME);
+        Response response = getUser(VALID_USERNAME);
+
+        //Then
+        response.then().statusCode(SC_BAD_REQUEST).body("details", Matchers.contains("User does not exist"));
+    }
+
     private void createUser() {
         User user = getUser(VALID_USERNAME, VALID_FIRSTNAME, VALID_LASTNAME);
         postUserRequest(user);
@@ -141,7 +178,7 @@ public class UserIntegrationTest {
     public void givenUserNameExists_whenGetRequest_thenReturnUser() {
         //Given
         createUser();
-        Response response = getUser(VALID_USERNAME);
+        Response response = assertMaxStatements(sqlStatementCounter, 1, () -> getUser(VALID_USERNAME));
 
         //Then
         response.then().statusCode(SC_OK).body("userName", Matchers.is(VALID_USERNAME));
@@ -153,10 +190,11 @@ public class UserIntegrationTest {
         createUser();
         User user = getUser(VALID_USERNAME_1,VALID_FIRSTNAME_1,VALID_LASTNAME_1);
         postUserRequest(user);
-        Response response = getAllUsers();
+        //Page select, the count is skipped for a first page that is not full
+        Response response = assertMaxStatements(sqlStatementCounter, 2, this::getAllUsers);
 
         //Then
-        response.then().statusCode(SC_OK).body("results.size()", equalTo(2));
+        response.then().statusCode(SC_OK).body("content.size()", equalTo(2));
     }
 
     @Test
@@ -165,7 +203,37 @@ public class UserIntegrationTest {
         Response response = getAllUsers();
 
         //Then
-        response.then().statusCode(SC_OK).body("results.size()", equalTo(0));
+        response.then().statusCode(SC_OK).body("content.size()", equalTo(0));
+    }
+
+    @Test
+    public void givenUsers_whenStreamRequest_thenOneUserPerLine() {
+        //Given
+        createUser();
+        User user = getUser(VALID_USERNAME_1,VALID_FIRSTNAME_1,VALID_LASTNAME_1);
+        postUserRequest(user);
+        Response response = given().when().get("/users/stream");
+
+        //Then
+        response.then().statusCode(SC_OK);
+        String[] lines = response.getBody().asString().split("\n");
+        assertEquals(2, lines.length);
+        assertThat(lines[0], Matchers.containsString(VALID_USERNAME));
+        assertThat(lines[1], Matchers.containsString(VALID_USERNAME_1));
+    }
+
+    @Test
+    public void givenUserRequest_whenPrometheusScraped_thenLatencyHistogramsAndPoolGaugesExported() {
+        //Given
+        createUser();
+        getUser(VALID_USERNAME);
+        Response response = given().when().get("/actuator/prometheus");
+
+        //Then
+        response.then().statusCode(SC_OK)
+                .body(Matchers.containsString("http_server_requests_seconds_bucket"))
+                .body(Matchers.containsString("spring_data_repository_invocations_seconds_bucket"))
+                .body(Matchers.containsString("hikaricp_connections_active"));
     }
 
     private Response getAllUsers() {
@@ -200,5 +268,7 @@ public class UserIntegrationTest {
     @After
     public void cleanup() {
         userRepository.deleteAll();
+        //Users deleted through the repository are not evicted by UserServiceImpl
+        userNameCache.clear();
     }
 }
@@ -3,26 +3,36 @@ package com.example.incidentreport.small;
 import com.example.incidentreport.contract.IncidentReport;
 import com.example.incidentreport.controller.IncidentController;
 import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.service.ChangeTracker;
 import com.example.incidentreport.service.IncidentService;
+import com.example.incidentreport.utils.CustomExceptionHandler;
+import com.example.incidentreport.utils.PreconditionFailedException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.example.incidentreport.util.TestConstants.DEFAULT_PAGE_NUMBER;
 import static com.example.incidentreport.util.TestConstants.DEFAULT_PAGE_SIZE;
@@ -30,8 +40,16 @@ import static com.example.incidentreport.util.TestConstants.VALID_INCIDENT_ID;
 import static com.example.incidentreport.util.TestConstants.VALID_INCIDENT_TITLE;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME_1;
+import static org.mockito.ArgumentMatchers.any;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -44,13 +62,16 @@ public class IncidentControllerTest {
 
     @MockBean
     private IncidentService incidentService;
+    @MockBean
+    private ChangeTracker changeTracker;
     private IncidentReport incidentReport;
 
 
     @Before
     public void setup() {
-        incidentController = new IncidentController(incidentService);
+        incidentController = new IncidentController(incidentService, changeTracker, new ObjectMapper());
         mockMvc = MockMvcBuilders.standaloneSetup(incidentController)
+                .setControllerAdvice(new CustomExceptionHandler())
                 .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver()).build();
         incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE).creator(VALID_USERNAME).build();
     }
@@ -65,6 +86,21 @@ public class IncidentControllerTest {
                 andExpect(MockMvcResultMatchers.jsonPath("$.message").exists());
     }
 
+    @Test
+    public void givenDuplicateTitle_whenPostRequest_thenConflict() throws Exception {
+        //Given
+        doThrow(new DataIntegrityViolationException("Duplicate entry",
+                new ConstraintViolationException("Duplicate entry", new SQLException(), "uk_incident_title_hash")))
+                .when(incidentService).createIncident(any());
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.post("/incident").content(asJsonString(incidentReport))
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                //Then
+                .andExpect(status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0]")
+                        .value("Incident report by the same title already exists"));
+    }
+
     @Test
     public void givenIncident_whenPatchRequest_thenIncidentUpdated() throws Exception {
         //When
@@ -77,6 +113,51 @@ public class IncidentControllerTest {
                 andExpect(MockMvcResultMatchers.jsonPath("$.message").exists());
     }
 
+    @Test
+    public void givenConcurrentUpdate_whenPatchRequestWithoutIfMatch_thenConflict() throws Exception {
+        //Given
+        when(incidentService.updateIncident(any(), any(), any(), any()))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated by another transaction"));
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.patch("/incident?incident_id="+VALID_INCIDENT_ID+
+                                "&loggedin_user="+VALID_USERNAME)
+                        .content(asJsonString(incidentReport))
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                //Then
+                .andExpect(status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0]")
+                        .value(PreconditionFailedException.CONCURRENT_MODIFICATION));
+    }
+
+    @Test
+    public void givenConcurrentUpdate_whenPatchRequestWithIfMatch_thenPreconditionFailed() throws Exception {
+        //Given
+        when(incidentService.updateIncident(any(), any(), any(), any()))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated by another transaction"));
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.patch("/incident?incident_id="+VALID_INCIDENT_ID+
+                                "&loggedin_user="+VALID_USERNAME)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .content(asJsonString(incidentReport))
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                //Then
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0]")
+                        .value(PreconditionFailedException.CONCURRENT_MODIFICATION));
+    }
+
+    @Test
+    public void givenConcurrentUpdate_whenDeleteRequestWithoutIfMatch_thenConflict() throws Exception {
+        //Given
+        doThrow(new OptimisticLockingFailureException("Row was updated by another transaction"))
+                .when(incidentService).deleteIncident(any(), any(), any());
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.delete("/incident?incident_id="+VALID_INCIDENT_ID+
+                        "&loggedin_user="+VALID_USERNAME))
+                //Then
+                .andExpect(status().isConflict());
+    }
+
   @Test
     public void givenIncident_whenDeleteRequest_thenIncidenteleted() throws Exception {
         //When
@@ -107,6 +188,93 @@ public class IncidentControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void givenCurrentETag_whenGetRequest_thenNotModifiedWithoutQuery() throws Exception {
+        //Given
+        when(changeTracker.getIncidentsETag()).thenReturn("\"1-1\"");
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.get("/incidents?page=0&size=10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+                //Then
+                .andExpect(status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-1\""));
+        verify(incidentService, never()).getIncidents(any(), any());
+    }
+
+    @Test
+    public void givenETagBeforeUserChange_whenGetRequest_thenIncidentsReturned() throws Exception {
+        //Given
+        when(changeTracker.getIncidentsETag()).thenReturn("\"1-2\"");
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.get("/incidents?page=0&size=10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+                //Then
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1-2\""));
+    }
+
+    @Test
+    public void givenIncidents_whenCsvExportRequest_thenQuotedRowPerIncident() throws Exception {
+        //Given
+        IncidentReport incidentReport2 = new IncidentReport.Builder().incidentId(2L).title("Printer, \"lab\"")
+                .creator(VALID_USERNAME).status(IncidentStatus.NEW.getName()).build();
+        doAnswer(invocation -> {
+            Consumer<IncidentReport> consumer = invocation.getArgument(1);
+            consumer.accept(incidentReport2);
+            return null;
+        }).when(incidentService).forEachIncident(any(), any());
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/incidents/export?format=csv"))
+                .andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(mvcResult))
+                //Then
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals("incidentId,title,status,creator,assignee,version", lines[0]);
+        assertEquals("2,\"Printer, \"\"lab\"\"\",New," + VALID_USERNAME + ",,", lines[1]);
+    }
+
+    @Test
+    public void givenFormulaTitle_whenCsvExportRequest_thenFormulaNotEvaluated() throws Exception {
+        //Given
+        IncidentReport incidentReport2 = new IncidentReport.Builder().incidentId(2L)
+                .title("=HYPERLINK(\"http://attacker.example\",\"Details\")").creator("@" + VALID_USERNAME)
+                .status(IncidentStatus.NEW.getName()).assignee("-1+1").build();
+        doAnswer(invocation -> {
+            Consumer<IncidentReport> consumer = invocation.getArgument(1);
+            consumer.accept(incidentReport2);
+            return null;
+        }).when(incidentService).forEachIncident(any(), any());
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/incidents/export?format=csv"))
+                .andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(mvcResult))
+                //Then
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+        assertEquals("2,\"'=HYPERLINK(\"\"http://attacker.example\"\",\"\"Details\"\")\",New,'@" + VALID_USERNAME
+                + ",'-1+1,", lines[1]);
+    }
+
+    @Test
+    public void givenUnknownStatus_whenExportRequest_thenBadRequest() throws Exception {
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.get("/incidents/export?status=Unknown"))
+                //Then
+                .andExpect(status().isBadRequest());
+        verify(incidentService, never()).forEachIncident(any(), any());
+    }
+
+    @Test
+    public void givenUnknownFormat_whenExportRequest_thenBadRequest() throws Exception {
+        //When
+        mockMvc.perform(MockMvcRequestBuilders.get("/incidents/export?format=xml"))
+                //Then
+                .andExpect(status().isBadRequest());
+        verify(incidentService, never()).forEachIncident(any(), any());
+    }
+
     private static String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -1,25 +1,40 @@
 package com.example.incidentreport.small;
 
+import com.example.incidentreport.contract.BulkIncidentResult;
 import com.example.incidentreport.contract.IncidentReport;
+import com.example.incidentreport.contract.IncidentReportSlice;
 import com.example.incidentreport.model.Incident;
 import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.model.IncidentSummary;
 import com.example.incidentreport.model.UserDetail;
 import com.example.incidentreport.repository.IncidentRepository;
 import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.service.ChangeTracker;
+import com.example.incidentreport.service.IncidentPageCache;
 import com.example.incidentreport.service.IncidentServiceImpl;
+import com.example.incidentreport.service.TitleFilter;
+import com.example.incidentreport.service.UserNameCache;
 import com.example.incidentreport.utils.BadRequestException;
 import com.example.incidentreport.utils.ConflictException;
+import com.example.incidentreport.utils.ContinuationToken;
+import com.example.incidentreport.utils.PreconditionFailedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.example.incidentreport.util.TestConstants.DEFAULT_PAGE_NUMBER;
 import static com.example.incidentreport.util.TestConstants.DEFAULT_PAGE_SIZE;
@@ -34,11 +49,18 @@ import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_USER_ID;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,20 +74,33 @@ public class IncidentServiceTest {
     @Mock
     private IncidentRepository incidentRepository;
 
+    @Mock
+    private UserNameCache userNameCache;
+
+    @Mock
+    private ChangeTracker changeTracker;
+
     private IncidentServiceImpl incidentService;
     private IncidentReport incidentReport;
     private Incident incident;
     private UserDetail userDetail;
+    private IncidentSummary incidentSummary;
+    private TitleFilter titleFilter;
 
 
     @Before
     public void setup() {
-        incidentService = new IncidentServiceImpl(incidentRepository,userRepository);
+        titleFilter = new TitleFilter(1000, 0.01);
+        incidentService = new IncidentServiceImpl(incidentRepository,userRepository,userNameCache,
+                new IncidentPageCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry(),
+                        changeTracker), changeTracker, titleFilter);
         incidentReport = new IncidentReport.Builder().creator(VALID_USERNAME).title(VALID_INCIDENT_TITLE).build();
         userDetail = new UserDetail.Builder().userId(VALID_USER_ID).userName(VALID_USERNAME).firstName(VALID_FIRSTNAME).
                 lastName(VALID_LASTNAME).build();
         incident = new Incident.Builder().creator(userDetail).title(VALID_INCIDENT_TITLE)
                 .statusId(IncidentStatus.ASSIGNED.getValue()).assignee(userDetail).build();
+        incidentSummary = new IncidentSummary(1L, VALID_INCIDENT_TITLE, IncidentStatus.ASSIGNED.getValue(),
+                VALID_USERNAME, VALID_USERNAME_1, 0L);
     }
 
     @Test(expected = BadRequestException.class)
@@ -80,18 +115,53 @@ public class IncidentServiceTest {
         incidentService.createIncident(incidentReport);
     }
 
+    @Test(expected = DataIntegrityViolationException.class)
+    public void givenIncidentTitleAlreadyExists_whenCreateIncident_constraintViolationPropagated() {
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        when(incidentRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_incident_title_hash"));
+        incidentService.createIncident(incidentReport);
+    }
+
     @Test(expected = ConflictException.class)
-    public void givenIncidentTitleAlreadyExists_whenCreateIncident_throwConflict() {
-        when(incidentRepository.findByTitle(any())).thenReturn(Optional.of(incident));
+    public void givenStoredTitle_whenCreateIncident_throwConflictException() {
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        when(incidentRepository.existsByTitleHash(any())).thenReturn(true);
         incidentService.createIncident(incidentReport);
     }
 
+    @Test
+    public void givenTitleNotInWarmFilter_whenCreateIncident_titleNotQueried() {
+        titleFilter.warmUp(Stream.of(VALID_INCIDENT_TITLE_1));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        incidentService.createIncident(incidentReport);
+        verify(incidentRepository,never()).existsByTitleHash(any());
+        verify(incidentRepository,times(1)).save(any());
+        assertTrue(titleFilter.mightContain(VALID_INCIDENT_TITLE.toUpperCase()));
+    }
+
+    @Test
+    public void givenTitleInWarmFilter_whenCreateIncident_titleQueried() {
+        titleFilter.warmUp(Stream.of(VALID_INCIDENT_TITLE));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        incidentService.createIncident(incidentReport);
+        verify(incidentRepository,times(1)).existsByTitleHash(any());
+    }
+
+    @Test
+    public void givenNewTitles_whenCreateIncidents_titlesNotQueried() {
+        titleFilter.warmUp(Stream.empty());
+        when(userRepository.findByUserNameIn(any())).thenReturn(singletonList(userDetail));
+        when(incidentRepository.findAssigneeIdsByStatusId(any(),any())).thenReturn(emptyList());
+        List<BulkIncidentResult> results = incidentService.createIncidents(singletonList(incidentReport));
+        assertEquals(201, results.get(0).getStatus());
+        verify(incidentRepository,never()).findTitlesByTitleHashIn(any());
+    }
+
     @Test(expected = BadRequestException.class)
     public void givenIncidentCreatorAssigneeInvalid_whenCreateIncident_throwBadRequestException() {
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
                 .creator(INVALID_USERNAME).assignee(INVALID_USERNAME).build();
-        when(incidentRepository.findByTitle(any())).thenReturn(Optional.empty());
-        when(userRepository.findByUserName(any())).thenReturn(Optional.empty());
+        when(userNameCache.findReference(any())).thenReturn(Optional.empty());
         incidentService.createIncident(incidentReport);
     }
 
@@ -99,113 +169,284 @@ public class IncidentServiceTest {
     public void givenIncidentInvalidStatus_whenCreateIncident_throwBadRequestException() {
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
                 .creator(VALID_USERNAME).assignee(VALID_USERNAME).status(INVALID_STATUS).build();
-        when(incidentRepository.findByTitle(any())).thenReturn(Optional.empty());
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         incidentService.createIncident(incidentReport);
     }
 
-    @Test(expected = ConflictException.class)
-    public void givenAssigneeHasAssignedTasks_whenCreateIncident_throwConflictException() {
+    @Test
+    public void givenCreatorIsAssignee_whenCreateIncident_userLoadedOnce() {
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
-                .creator(VALID_USERNAME).assignee(VALID_USERNAME).status(IncidentStatus.ASSIGNED.getName()).build();
-        when(incidentRepository.findByTitle(any())).thenReturn(Optional.empty());
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
-        List<Incident> incidentList = new ArrayList<>();
-        incidentList.add(incident);
-        when(incidentRepository.findByAssigneeAndStatusId(any(),any())).thenReturn(incidentList);
+                .creator(VALID_USERNAME).assignee(VALID_USERNAME).build();
+        when(userNameCache.findReference(VALID_USERNAME)).thenReturn(Optional.of(userDetail));
         incidentService.createIncident(incidentReport);
+        verify(userNameCache,times(1)).findReference(any());
+        verify(incidentRepository,times(1)).save(any());
     }
 
     @Test
     public void givenIncident_whenCreateIncident_incidentCreated() {
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
                 .creator(VALID_USERNAME).assignee(VALID_USERNAME).status(IncidentStatus.ASSIGNED.getName()).build();
-        when(incidentRepository.findByTitle(any())).thenReturn(Optional.empty());
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
-        when(incidentRepository.findByAssigneeAndStatusId(any(),any())).thenReturn(emptyList());
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         incidentService.createIncident(incidentReport);
         verify(incidentRepository,times(1)).save(any());
     }
 
+    @Test
+    public void givenIncidents_whenCreateIncidents_resultPerIncidentReturned() {
+        IncidentReport duplicateTitle = new IncidentReport.Builder().creator(VALID_USERNAME)
+                .title(VALID_INCIDENT_TITLE).build();
+        IncidentReport invalidCreator = new IncidentReport.Builder().creator(INVALID_USERNAME)
+                .title(VALID_INCIDENT_TITLE_1).build();
+        when(userRepository.findByUserNameIn(any())).thenReturn(singletonList(userDetail));
+        when(incidentRepository.findTitlesByTitleHashIn(any())).thenReturn(emptyList());
+        when(incidentRepository.findAssigneeIdsByStatusId(any(),any())).thenReturn(emptyList());
+        List<BulkIncidentResult> results = incidentService.createIncidents(
+                asList(incidentReport, duplicateTitle, invalidCreator));
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(409, results.get(1).getStatus());
+        assertEquals(400, results.get(2).getStatus());
+        verify(incidentRepository,times(1)).saveAll(any());
+    }
+
+    @Test
+    public void givenNullIncident_whenCreateIncidents_badRequestReturnedForIt() {
+        when(userRepository.findByUserNameIn(any())).thenReturn(singletonList(userDetail));
+        when(incidentRepository.findAssigneeIdsByStatusId(any(),any())).thenReturn(emptyList());
+        List<BulkIncidentResult> results = incidentService.createIncidents(asList(null, incidentReport));
+        assertEquals(400, results.get(0).getStatus());
+        assertEquals(201, results.get(1).getStatus());
+    }
+
+    @Test
+    public void givenBusyAssignee_whenCreateIncidents_conflictReturned() {
+        IncidentReport assignedIncident = new IncidentReport.Builder().creator(VALID_USERNAME)
+                .assignee(VALID_USERNAME).title(VALID_INCIDENT_TITLE).build();
+        when(userRepository.findByUserNameIn(any())).thenReturn(singletonList(userDetail));
+        when(incidentRepository.findTitlesByTitleHashIn(any())).thenReturn(emptyList());
+        when(incidentRepository.findAssigneeIdsByStatusId(any(),any())).thenReturn(singletonList(VALID_USER_ID));
+        List<BulkIncidentResult> results = incidentService.createIncidents(singletonList(assignedIncident));
+        assertEquals(409, results.get(0).getStatus());
+    }
+
     @Test
     public void givenIncidents_whenGet_incidentListReturned() {
         PageRequest pageRequest = PageRequest.of(DEFAULT_PAGE_NUMBER,DEFAULT_PAGE_SIZE);
-        Incident incident2 = new Incident.Builder().creator(userDetail).title(VALID_INCIDENT_TITLE_1)
-                .statusId(IncidentStatus.ASSIGNED.getValue()).assignee(userDetail).build();
-        List<Incident> incidentList = new ArrayList<>();
-        incidentList.add(incident);
-        incidentList.add(incident2);
-        when(incidentRepository.findIncidentsByStatusId(anyInt())).thenReturn(incidentList);
+        IncidentSummary incidentSummary2 = new IncidentSummary(2L, VALID_INCIDENT_TITLE_1,
+                IncidentStatus.ASSIGNED.getValue(), VALID_USERNAME, null, 0L);
+        List<IncidentSummary> incidentList = new ArrayList<>();
+        incidentList.add(incidentSummary);
+        incidentList.add(incidentSummary2);
+        when(incidentRepository.findIncidentSummariesByStatusId(anyInt(),any())).thenReturn(
+                new PageImpl<>(incidentList,pageRequest,incidentList.size()));
         Page<IncidentReport> incidents = incidentService.getIncidents(IncidentStatus.ASSIGNED.getName(), pageRequest);
         assertEquals(incidents.getContent().size(),2);
+        assertEquals(VALID_USERNAME_1,incidents.getContent().get(0).getAssignee());
+        assertEquals(IncidentStatus.ASSIGNED.getName(),incidents.getContent().get(1).getStatus());
+    }
+
+    @Test
+    public void givenStatus_whenGet_onlyRequestedPageIsLoaded() {
+        PageRequest pageRequest = PageRequest.of(DEFAULT_PAGE_NUMBER,DEFAULT_PAGE_SIZE);
+        List<IncidentSummary> incidentList = new ArrayList<>();
+        incidentList.add(incidentSummary);
+        long totalIncidents = 500_000L;
+        when(incidentRepository.findIncidentSummariesByStatusId(IncidentStatus.CLOSED.getValue(),pageRequest))
+                .thenReturn(new PageImpl<>(incidentList,pageRequest,totalIncidents));
+        Page<IncidentReport> incidents = incidentService.getIncidents(IncidentStatus.CLOSED.getName(), pageRequest);
+        assertEquals(1,incidents.getContent().size());
+        assertEquals(totalIncidents,incidents.getTotalElements());
+        verify(incidentRepository,times(1))
+                .findIncidentSummariesByStatusId(IncidentStatus.CLOSED.getValue(),pageRequest);
+    }
+
+    @Test
+    public void givenCachedPage_whenIncidentCreated_pageLoadedAgain() {
+        PageRequest pageRequest = PageRequest.of(DEFAULT_PAGE_NUMBER,DEFAULT_PAGE_SIZE);
+        when(incidentRepository.findIncidentSummariesByStatusId(IncidentStatus.NEW.getValue(),pageRequest))
+                .thenReturn(new PageImpl<>(singletonList(incidentSummary),pageRequest,1));
+        when(incidentRepository.findIncidentSummaries(pageRequest))
+                .thenReturn(new PageImpl<>(singletonList(incidentSummary),pageRequest,1));
+        incidentService.getIncidents(IncidentStatus.NEW.getName(), pageRequest);
+        incidentService.getIncidents(IncidentStatus.NEW.getName(), pageRequest);
+        incidentService.getIncidents(null, pageRequest);
+        verify(incidentRepository,times(1))
+                .findIncidentSummariesByStatusId(IncidentStatus.NEW.getValue(),pageRequest);
+
+        //A new incident evicts the pages of its status and of all incidents only
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        incidentService.createIncident(incidentReport);
+        incidentService.getIncidents(IncidentStatus.NEW.getName(), pageRequest);
+        incidentService.getIncidents(null, pageRequest);
+        verify(incidentRepository,times(2))
+                .findIncidentSummariesByStatusId(IncidentStatus.NEW.getValue(),pageRequest);
+        verify(incidentRepository,times(2)).findIncidentSummaries(pageRequest);
+    }
+
+    @Test
+    public void givenCachedPage_whenETagChangedElsewhere_pageLoadedAgain() {
+        PageRequest pageRequest = PageRequest.of(DEFAULT_PAGE_NUMBER,DEFAULT_PAGE_SIZE);
+        when(incidentRepository.findIncidentSummaries(pageRequest))
+                .thenReturn(new PageImpl<>(singletonList(incidentSummary),pageRequest,1));
+        //A write of another instance changes the counters without evicting the page
+        when(changeTracker.getIncidentsETag()).thenReturn("\"1-1\"", "\"1-1\"", "\"1-2\"");
+        incidentService.getIncidents(null, pageRequest);
+        incidentService.getIncidents(null, pageRequest);
+        verify(incidentRepository,times(1)).findIncidentSummaries(pageRequest);
+
+        incidentService.getIncidents(null, pageRequest);
+        verify(incidentRepository,times(2)).findIncidentSummaries(pageRequest);
+    }
+
+    @Test
+    public void givenStatus_whenForEachIncident_incidentsOfStatusStreamed() {
+        when(incidentRepository.streamIncidentSummariesByStatusId(IncidentStatus.ASSIGNED.getValue()))
+                .thenReturn(Stream.of(incidentSummary));
+        List<IncidentReport> incidentReports = new ArrayList<>();
+        incidentService.forEachIncident(IncidentStatus.ASSIGNED.getName(), incidentReports::add);
+        assertEquals(1, incidentReports.size());
+        assertEquals(VALID_INCIDENT_TITLE, incidentReports.get(0).getTitle());
+        verify(incidentRepository, never()).streamIncidentSummaries();
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void givenInvalidStatus_whenForEachIncident_throwBadRequestException() {
+        incidentService.forEachIncident("Unknown", incidentReport -> fail("Nothing should be streamed"));
+    }
+
+    @Test
+    public void givenMoreIncidentsThanSize_whenGetAfter_nextTokenReturned() {
+        IncidentSummary incidentSummary2 = new IncidentSummary(2L, VALID_INCIDENT_TITLE_1,
+                IncidentStatus.ASSIGNED.getValue(), VALID_USERNAME, VALID_USERNAME, 0L);
+        List<IncidentSummary> incidentList = new ArrayList<>();
+        incidentList.add(incidentSummary);
+        incidentList.add(incidentSummary2);
+        when(incidentRepository.findIncidentSummariesByStatusIdAfter(
+                IncidentStatus.ASSIGNED.getValue(), 0L, PageRequest.of(0, 2))).thenReturn(incidentList);
+        IncidentReportSlice slice = incidentService.getIncidentsAfter(IncidentStatus.ASSIGNED.getName(), null, 1);
+        assertEquals(1, slice.getContent().size());
+        ContinuationToken token = ContinuationToken.decode(slice.getNextToken());
+        assertEquals(Long.valueOf(1L), token.getLastIncidentId());
+        assertEquals(Integer.valueOf(IncidentStatus.ASSIGNED.getValue()), token.getStatusId());
+    }
+
+    @Test
+    public void givenContinuationToken_whenGetAfter_seekPastLastIncident() {
+        String token = new ContinuationToken(null, 10L).encode();
+        when(incidentRepository.findIncidentSummariesAfter(10L, PageRequest.of(0, 3)))
+                .thenReturn(emptyList());
+        IncidentReportSlice slice = incidentService.getIncidentsAfter(null, token, 2);
+        assertEquals(0, slice.getContent().size());
+        assertNull(slice.getNextToken());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void givenInvalidContinuationToken_whenGetAfter_throwBadRequestException() {
+        incidentService.getIncidentsAfter(null, "%not-a-token%", DEFAULT_PAGE_SIZE);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenInvalidUser_whenUpdateIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.empty());
-        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME,incidentReport);
+        when(userNameCache.findReference(any())).thenReturn(Optional.empty());
+        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME,incidentReport, null);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenInvalidStatus_whenUpdateIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         IncidentReport incidentReport1 = new  IncidentReport.Builder().creator(VALID_USERNAME)
                 .title(VALID_INCIDENT_TITLE).status(INVALID_STATUS).build();
-        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME,incidentReport1);
+        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME,incidentReport1, null);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenIncidentAssigneeInvalid_whenUpdateIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
                 .assignee(INVALID_USERNAME).build();
-        when(userRepository.findByUserName(any())).thenReturn(Optional.empty());
-        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport);
+        when(userNameCache.findReference(any())).thenReturn(Optional.empty());
+        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport, null);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenInvalidIncidentId_whenUpdateIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
                .assignee(VALID_USERNAME).build();
         when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.empty());
-        incidentService.updateIncident(INVALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport);
+        incidentService.updateIncident(INVALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport, null);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void givenCreatorUpdatingStatusOfAssignedIncident_whenUpdateIncident_throwBadRequestException() {
+        UserDetail assignee = new UserDetail.Builder().userId(VALID_USER_ID + 1).userName(VALID_USERNAME_1).build();
+        Incident assignedIncident = new Incident.Builder().creator(userDetail).title(VALID_INCIDENT_TITLE)
+                .statusId(IncidentStatus.ASSIGNED.getValue()).assignee(assignee).build();
+        IncidentReport incidentReport = new IncidentReport.Builder().status(IncidentStatus.CLOSED.getName()).build();
+        when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.of(assignedIncident));
+        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport, null);
     }
 
     @Test
-    public void givenValidUserUpdatingStatus_whenUpdateIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
-        IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE)
-                .assignee(VALID_USERNAME).build();
+    public void givenAssigneeUpdatingStatus_whenUpdateIncident_incidentUpdatedInPlace() {
+        IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE_1)
+                .assignee(VALID_USERNAME).status(IncidentStatus.CLOSED.getName()).build();
         when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.of(incident));
-        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport);
-        verify(incidentRepository,times(1)).save(any());
+        incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport, null);
+        //Users come from the loaded incident and the managed incident is changed in place
+        verify(userNameCache,never()).findReference(any());
+        verify(incidentRepository,never()).save(any());
+        assertEquals(VALID_INCIDENT_TITLE_1,incident.getTitle());
+        assertEquals(Integer.valueOf(IncidentStatus.CLOSED.getValue()),incident.getStatusId());
+    }
+
+    @Test
+    public void givenStaleVersion_whenUpdateIncident_throwPreconditionFailedException() {
+        IncidentReport incidentReport = new IncidentReport.Builder().title(VALID_INCIDENT_TITLE_1).build();
+        when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.of(incident));
+        try {
+            incidentService.updateIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, incidentReport, 7L);
+            fail("Expected PreconditionFailedException");
+        } catch (PreconditionFailedException e) {
+            //Nothing is changed when the client did not see the current version
+            assertEquals(VALID_INCIDENT_TITLE,incident.getTitle());
+            verify(incidentRepository,never()).flush();
+        }
     }
 
     @Test(expected = BadRequestException.class)
     public void givenInvalidUser_whenDeleteIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.empty());
-        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME);
+        when(userNameCache.findReference(any())).thenReturn(Optional.empty());
+        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME, null);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenInvalidIncidentId_whenDeleteIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.empty());
-        incidentService.deleteIncident(INVALID_INCIDENT_ID_LONG,VALID_USERNAME);
+        incidentService.deleteIncident(INVALID_INCIDENT_ID_LONG,VALID_USERNAME, null);
     }
 
     @Test(expected = BadRequestException.class)
     public void givenIncidentAssigneeInvalid_whenDeleteIncident_throwBadRequestException() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
-        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME_1);
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME_1, null);
     }
 
     @Test
     public void givenIncident_whenDeleteIncident_thenOK() {
-        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
+        when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.of(incident));
+        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME_1, null);
+    }
+
+    @Test
+    public void givenIncident_whenDeleteIncident_titleRemovedFromFilter() {
+        titleFilter.warmUp(Stream.of(VALID_INCIDENT_TITLE));
+        when(userNameCache.findReference(any())).thenReturn(Optional.of(userDetail));
         when(incidentRepository.findIncidentsByIncidentId(anyLong())).thenReturn(Optional.of(incident));
-        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME_1);
+        incidentService.deleteIncident(VALID_INCIDENT_ID_LONG,VALID_USERNAME_1, null);
+        assertFalse(titleFilter.mightContain(VALID_INCIDENT_TITLE));
     }
 
 }
@@ -0,0 +1,89 @@
+package com.example.incidentreport.small;
+
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.service.IncidentServiceImpl;
+import com.example.incidentreport.service.OperationLatencies;
+import com.example.incidentreport.service.SlowRequest;
+import com.example.incidentreport.service.SlowRequestLog;
+import com.example.incidentreport.service.UserServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperationLatenciesTest {
+
+    private OperationLatencies operationLatencies;
+    private Method getIncidents;
+    private Method getUserByUserName;
+
+    @Before
+    public void setup() throws NoSuchMethodException {
+        operationLatencies = new OperationLatencies();
+        getIncidents = IncidentServiceImpl.class.getMethod("getIncidents", String.class, Pageable.class);
+        getUserByUserName = UserServiceImpl.class.getMethod("getUserByUserName", String.class);
+    }
+
+    @Test
+    public void givenStatusFilters_whenRecorded_latenciesSplitByStatus() {
+        operationLatencies.record(getIncidents, new Object[]{"closed", Pageable.unpaged()},
+                TimeUnit.MILLISECONDS.toNanos(10));
+        operationLatencies.record(getIncidents, new Object[]{IncidentStatus.CLOSED.getName(), Pageable.unpaged()},
+                TimeUnit.MILLISECONDS.toNanos(30));
+        operationLatencies.record(getIncidents, new Object[]{null, Pageable.unpaged()},
+                TimeUnit.MILLISECONDS.toNanos(5));
+
+        Map<String, OperationLatencies.LatencySummary> summaries = operationLatencies.getSummaries();
+        assertEquals(2, summaries.size());
+        OperationLatencies.LatencySummary closed = summaries.get("IncidentServiceImpl.getIncidents[Closed]");
+        assertEquals(2, closed.getCount());
+        assertEquals(30, closed.getMaxMillis(), 0.5);
+        assertEquals(1, summaries.get("IncidentServiceImpl.getIncidents[all]").getCount());
+    }
+
+    @Test
+    public void givenOperationWithoutStatus_whenRecordedAcrossReads_totalsKept() {
+        operationLatencies.record(getUserByUserName, new Object[]{VALID_USERNAME}, TimeUnit.MILLISECONDS.toNanos(2));
+        operationLatencies.getSummaries();
+        operationLatencies.record(getUserByUserName, new Object[]{VALID_USERNAME}, TimeUnit.HOURS.toNanos(1));
+
+        OperationLatencies.LatencySummary summary =
+                operationLatencies.getSummaries().get("UserServiceImpl.getUserByUserName");
+        assertEquals(2, summary.getCount());
+        //Recorded values are capped at one minute
+        assertEquals(TimeUnit.MINUTES.toMillis(1), summary.getMaxMillis(), TimeUnit.MINUTES.toMillis(1) / 100.0);
+    }
+
+    @Test
+    public void givenMoreSlowRequestsThanCapacity_whenRead_lastOnesReturnedNewestFirst() {
+        SlowRequestLog slowRequestLog = new SlowRequestLog(Duration.ofMillis(100), 2);
+        assertFalse(slowRequestLog.isSlow(TimeUnit.MILLISECONDS.toNanos(99)));
+        assertTrue(slowRequestLog.isSlow(TimeUnit.MILLISECONDS.toNanos(100)));
+        for (int i = 0; i < 3; i++) {
+            slowRequestLog.add(new SlowRequest(Instant.now(), null, "operation" + i, Collections.emptyList(),
+                    "main", 100 + i, 0, 0));
+        }
+
+        List<SlowRequest> slowRequests = slowRequestLog.getSlowRequests();
+        assertEquals(2, slowRequests.size());
+        assertEquals("operation2", slowRequests.get(0).getOperation());
+        assertEquals("operation1", slowRequests.get(1).getOperation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenZeroCapacity_whenSlowRequestLogCreated_throwIllegalArgumentException() {
+        new SlowRequestLog(Duration.ofMillis(100), 0);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.incidentreport.small;
+
+import com.example.incidentreport.service.TitleFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TitleFilterTest {
+
+    private static final int EXPECTED_TITLES = 1000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private TitleFilter titleFilter;
+
+    @Before
+    public void setup() {
+        titleFilter = new TitleFilter(EXPECTED_TITLES, FALSE_POSITIVE_PROBABILITY);
+        titleFilter.warmUp(Stream.empty());
+    }
+
+    @Test
+    public void givenFilterNotWarmedUp_whenMightContain_thenEveryTitleMightBePresent() {
+        TitleFilter coldFilter = new TitleFilter(EXPECTED_TITLES, FALSE_POSITIVE_PROBABILITY);
+        assertTrue(coldFilter.mightContain("Disk full"));
+    }
+
+    @Test
+    public void givenWarmedUpTitles_whenMightContain_thenPresent() {
+        TitleFilter warmedFilter = new TitleFilter(EXPECTED_TITLES, FALSE_POSITIVE_PROBABILITY);
+        warmedFilter.warmUp(Stream.of("Disk full", "Printer jam"));
+        assertTrue(warmedFilter.mightContain("Disk full"));
+        assertTrue(warmedFilter.mightContain("Printer jam"));
+    }
+
+    @Test
+    public void givenAddedAndRemovedTitle_whenMightContain_thenAbsent() {
+        titleFilter.add("Disk full");
+        assertTrue(titleFilter.mightContain("Disk full"));
+        titleFilter.remove("Disk full");
+        assertFalse(titleFilter.mightContain("Disk full"));
+    }
+
+    @Test
+    public void givenTitleAddedTwice_whenRemovedOnce_thenStillPresent() {
+        titleFilter.add("Disk full");
+        titleFilter.add("Disk full");
+        titleFilter.remove("Disk full");
+        assertTrue(titleFilter.mightContain("Disk full"));
+        titleFilter.remove("Disk full");
+        assertFalse(titleFilter.mightContain("Disk full"));
+    }
+
+    @Test
+    public void givenSaturatedCounters_whenRemoved_thenStayFull() {
+        //4 bit counters saturate at 15, a saturated counter no longer knows how many titles it counts
+        for (int i = 0; i < 20; i++) {
+            titleFilter.add("Disk full");
+        }
+        for (int i = 0; i < 20; i++) {
+            titleFilter.remove("Disk full");
+        }
+        assertTrue(titleFilter.mightContain("Disk full"));
+    }
+
+    @Test
+    public void givenTitleNeverAdded_whenRemoved_thenCountersDoNotUnderflow() {
+        titleFilter.remove("Disk full");
+        //An underflow would borrow from the neighbouring counters or wrap to a full counter
+        assertFalse(titleFilter.mightContain("Disk full"));
+        titleFilter.add("Disk full");
+        assertTrue(titleFilter.mightContain("Disk full"));
+        titleFilter.remove("Disk full");
+        assertFalse(titleFilter.mightContain("Disk full"));
+    }
+
+    @Test
+    public void givenManyTitles_whenMightContain_thenNoFalseNegatives() {
+        TitleFilter largeFilter = new TitleFilter(5000, FALSE_POSITIVE_PROBABILITY);
+        largeFilter.warmUp(Stream.empty());
+        for (int i = 0; i < 5000; i++) {
+            largeFilter.add("Incident " + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertTrue("Incident " + i, largeFilter.mightContain("Incident " + i));
+        }
+    }
+
+    @Test
+    public void givenExpectedTitles_whenProbingOthers_thenFalsePositivesNearConfiguredProbability() {
+        for (int i = 0; i < EXPECTED_TITLES; i++) {
+            titleFilter.add("Incident " + i);
+        }
+        int falsePositives = 0;
+        int probes = 10_000;
+        for (int i = 0; i < probes; i++) {
+            if (titleFilter.mightContain("Other incident " + i)) {
+                falsePositives++;
+            }
+        }
+        //Sizing of the counters and hash functions, with room for the spread of a single run
+        assertTrue(falsePositives + " false positives", falsePositives < probes * FALSE_POSITIVE_PROBABILITY * 3);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.incidentreport.small;
+
+import com.example.incidentreport.utils.TitleHash;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TitleHashTest {
+
+    @Test
+    public void givenTitlesDifferingByCase_whenHashed_hashesEqual() {
+        assertArrayEquals(TitleHash.of("Outage"), TitleHash.of("OUTAGE"));
+        //Lower cased to i and a combining dot above, the dot is dropped with the accents
+        assertArrayEquals(TitleHash.of("istanbul"), TitleHash.of("\u0130STANBUL"));
+    }
+
+    @Test
+    public void givenTitlesDifferingByTrailingSpaces_whenHashed_hashesEqual() {
+        assertArrayEquals(TitleHash.of("Outage"), TitleHash.of("Outage "));
+        assertArrayEquals(TitleHash.of("Outage"), TitleHash.of("Outage   "));
+    }
+
+    @Test
+    public void givenTitlesDifferingByAccents_whenHashed_hashesEqual() {
+        assertArrayEquals(TitleHash.of("Cafe"), TitleHash.of("Caf\u00e9"));
+        //Composed and decomposed forms of the same accented letter
+        assertArrayEquals(TitleHash.of("Caf\u00e9"), TitleHash.of("Cafe\u0301"));
+        assertArrayEquals(TitleHash.of("resume"), TitleHash.of("R\u00c9SUM\u00c9 "));
+    }
+
+    @Test
+    public void givenDifferentTitles_whenHashed_hashesDiffer() {
+        assertFalse(Arrays.equals(TitleHash.of("Outage 1"), TitleHash.of("Outage 2")));
+        //Leading spaces are significant under the column collation too
+        assertFalse(Arrays.equals(TitleHash.of("Outage"), TitleHash.of(" Outage")));
+    }
+
+    @Test
+    public void givenNoTitle_whenHashed_noHash() {
+        assertNull(TitleHash.of(null));
+    }
+}
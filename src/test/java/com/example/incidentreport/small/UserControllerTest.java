@@ -3,6 +3,7 @@ package com.example.incidentreport.small;
 
 import com.example.incidentreport.contract.User;
 import com.example.incidentreport.controller.UserController;
+import com.example.incidentreport.service.ChangeTracker;
 import com.example.incidentreport.service.UserService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,15 +11,19 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME_1;
@@ -26,7 +31,13 @@ import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_USERNAME_1;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,13 +49,16 @@ public class UserControllerTest {
 
     @MockBean
     private UserService userService;
+    @MockBean
+    private ChangeTracker changeTracker;
     private User user;
 
 
     @Before
     public void setup() {
-        userController = new UserController(userService);
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+        userController = new UserController(userService, changeTracker, new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(userController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver()).build();
         user = new User.Builder().userName(VALID_USERNAME).lastName(VALID_LASTNAME).firstName(VALID_FIRSTNAME).build();
     }
 
@@ -100,17 +114,40 @@ public class UserControllerTest {
         userList.add(user);
         userList.add(user2);
         //When
-        when(userService.getAllUsers()).thenReturn(userList);
-        mockMvc.perform(MockMvcRequestBuilders.get("/users", VALID_USERNAME))
+        when(userService.getAllUsers(any())).thenReturn(new PageImpl<>(userList));
+        mockMvc.perform(MockMvcRequestBuilders.get("/users?page=0&size=2"))
                 .andDo(print())
                 //Then
                 .andExpect(status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].userName").value(VALID_USERNAME))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].firstName").value(VALID_FIRSTNAME))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].lastName").value(VALID_LASTNAME))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].userName").value(VALID_USERNAME_1))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].firstName").value(VALID_FIRSTNAME_1))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[1].lastName").value(VALID_LASTNAME_1));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].userName").value(VALID_USERNAME))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].firstName").value(VALID_FIRSTNAME))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].lastName").value(VALID_LASTNAME))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].userName").value(VALID_USERNAME_1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].firstName").value(VALID_FIRSTNAME_1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].lastName").value(VALID_LASTNAME_1));
+    }
+
+    @Test
+    public void givenUsers_whenStreamRequest_thenOneUserPerLine() throws Exception {
+        //Given
+        User user2 = new User.Builder().userName(VALID_USERNAME_1).firstName(VALID_FIRSTNAME_1)
+                .lastName(VALID_LASTNAME_1).build();
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(user);
+            consumer.accept(user2);
+            return null;
+        }).when(userService).forEachUser(any());
+        //When
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/stream"))
+                .andExpect(request().asyncStarted()).andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(mvcResult))
+                //Then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(VALID_USERNAME_1, new ObjectMapper().readValue(lines[1], User.class).getUserName());
     }
 
     private static String asJsonString(final Object obj) {
@@ -3,6 +3,9 @@ package com.example.incidentreport.small;
 import com.example.incidentreport.contract.User;
 import com.example.incidentreport.model.UserDetail;
 import com.example.incidentreport.repository.UserRepository;
+import com.example.incidentreport.service.ChangeTracker;
+import com.example.incidentreport.service.IncidentPageCache;
+import com.example.incidentreport.service.UserNameCache;
 import com.example.incidentreport.service.UserServiceImpl;
 import com.example.incidentreport.utils.BadRequestException;
 import com.example.incidentreport.utils.ConflictException;
@@ -11,11 +14,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static com.example.incidentreport.config.CacheConfig.USERS_BY_NAME;
 import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME;
 import static com.example.incidentreport.util.TestConstants.VALID_FIRSTNAME_1;
 import static com.example.incidentreport.util.TestConstants.VALID_LASTNAME;
@@ -32,13 +42,21 @@ public class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private IncidentPageCache incidentPageCache;
+    @Mock
+    private ChangeTracker changeTracker;
     private UserServiceImpl userServiceImpl;
     private User user;
     private UserDetail userDetail;
 
     @Before
     public void setup() {
-        userServiceImpl = new UserServiceImpl(userRepository);
+        userServiceImpl = new UserServiceImpl(userRepository,
+                new UserNameCache(new ConcurrentMapCacheManager(USERS_BY_NAME), userRepository), incidentPageCache,
+                changeTracker, entityManager);
         user = new User.Builder().userName(VALID_USERNAME).firstName(VALID_FIRSTNAME).lastName(VALID_LASTNAME).build();
         userDetail = new UserDetail.Builder().userName(VALID_USERNAME).firstName(VALID_FIRSTNAME).
                 lastName(VALID_LASTNAME).build();
@@ -46,14 +64,14 @@ public class UserServiceTest {
 
     @Test
     public void givenUserNotExists_whenCreateUser_thenUserIsCreated() {
-        when(userRepository.existsByUserNameIgnoreCase(any())).thenReturn(false);
+        when(userRepository.existsByUserName(any())).thenReturn(false);
         userServiceImpl.createUser(user);
         verify(userRepository,times(1)).save(any());
     }
 
     @Test(expected = ConflictException.class)
     public void givenUserExists_whenCreateUser_throwConflictException() {
-        when(userRepository.existsByUserNameIgnoreCase(any())).thenReturn(true);
+        when(userRepository.existsByUserName(any())).thenReturn(true);
         userServiceImpl.createUser(user);
         verify(userRepository,times(0)).save(any());
     }
@@ -77,6 +95,15 @@ public class UserServiceTest {
         verify(userRepository,times(1)).save(any());
     }
 
+    @Test
+    public void givenUserExists_whenUpdateUser_incidentPagesAndETagsRefreshed() {
+        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        userServiceImpl.updateUser(VALID_USERNAME,user);
+        //Incident pages show the user name
+        verify(incidentPageCache,times(1)).evictAll();
+        verify(changeTracker,times(1)).usersChanged();
+    }
+
     @Test(expected = BadRequestException.class)
     public void givenUserNotExists_whenDeleteUser_thenBadRequest() {
         when(userRepository.findByUserName(any())).thenReturn(Optional.empty());
@@ -98,6 +125,18 @@ public class UserServiceTest {
         assert(userObj.getFirstName()).equals(VALID_FIRSTNAME);
     }
 
+    @Test
+    public void givenCachedUser_whenUpdateUser_userLoadedAgain() {
+        when(userRepository.findByUserName(any())).thenReturn(Optional.of(userDetail));
+        userServiceImpl.getUserByUserName(VALID_USERNAME);
+        userServiceImpl.getUserByUserName(VALID_USERNAME.toUpperCase());
+        verify(userRepository,times(1)).findByUserName(any());
+
+        userServiceImpl.updateUser(VALID_USERNAME,user);
+        userServiceImpl.getUserByUserName(VALID_USERNAME);
+        //Once by the update, once by the lookup after it
+        verify(userRepository,times(3)).findByUserName(any());
+    }
 
     @Test
     public void givenUsers_whenGetAllUser_returnUsers() {
@@ -107,12 +146,27 @@ public class UserServiceTest {
         userDetails.add(userDetail);
         userDetails.add(userDetail1);
 
-        when(userRepository.findAll()).thenReturn(userDetails);
-        List<User> users = userServiceImpl.getAllUsers();
-        assert(users.get(0).getUserName().equals(VALID_USERNAME));
-        assert(users.get(0).getFirstName()).equals(VALID_FIRSTNAME);
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(userRepository.findAll(pageRequest)).thenReturn(new PageImpl<>(userDetails, pageRequest, 5));
+        Page<User> users = userServiceImpl.getAllUsers(pageRequest);
+        assert(users.getContent().get(0).getUserName().equals(VALID_USERNAME));
+        assert(users.getContent().get(0).getFirstName()).equals(VALID_FIRSTNAME);
+        assert(users.getContent().get(1).getUserName().equals(VALID_USERNAME_1));
+        assert(users.getContent().get(1).getLastName()).equals(VALID_LASTNAME_1);
+        assert(users.getTotalElements() == 5);
+    }
+
+    @Test
+    public void givenUsers_whenForEachUser_eachUserDetachedAfterConversion() {
+        UserDetail userDetail1 = new UserDetail.Builder().userName(VALID_USERNAME_1).firstName(VALID_FIRSTNAME_1).
+                lastName(VALID_LASTNAME_1).build();
+        when(userRepository.streamAll()).thenReturn(Stream.of(userDetail, userDetail1));
+        List<User> users = new ArrayList<>();
+        userServiceImpl.forEachUser(users::add);
+        assert(users.size() == 2);
         assert(users.get(1).getUserName().equals(VALID_USERNAME_1));
-        assert(users.get(1).getLastName()).equals(VALID_LASTNAME_1);
+        verify(entityManager).detach(userDetail);
+        verify(entityManager).detach(userDetail1);
     }
 
 }
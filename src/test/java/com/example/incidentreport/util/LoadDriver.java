@@ -0,0 +1,171 @@
+package com.example.incidentreport.util;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Sends requests at a fixed concurrency over pooled keep-alive connections and reports latency percentiles and
+ * throughput per scenario. Latencies include reading the whole response body
+ */
+public class LoadDriver implements AutoCloseable {
+
+    private final String baseUrl;
+    private final int concurrency;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService clients;
+
+    public LoadDriver(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.httpClient = HttpClients.custom().setMaxConnTotal(concurrency).setMaxConnPerRoute(concurrency).build();
+        this.clients = Executors.newFixedThreadPool(concurrency);
+    }
+
+    public HttpUriRequest get(String path) {
+        return new HttpGet(baseUrl + path);
+    }
+
+    public HttpUriRequest delete(String path) {
+        return new HttpDelete(baseUrl + path);
+    }
+
+    public HttpUriRequest post(String path, String json) {
+        return withBody(new HttpPost(baseUrl + path), json);
+    }
+
+    public HttpUriRequest put(String path, String json) {
+        return withBody(new HttpPut(baseUrl + path), json);
+    }
+
+    public HttpUriRequest patch(String path, String json) {
+        return withBody(new HttpPatch(baseUrl + path), json);
+    }
+
+    //Sends the requests built for indexes 0 to requests - 1, each client takes the next index once it is done
+    public Result run(String scenario, int requests, IntFunction<HttpUriRequest> request)
+            throws InterruptedException, ExecutionException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger clientErrors = new AtomicInteger();
+        AtomicInteger serverErrors = new AtomicInteger();
+        List<Future<?>> running = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        for (int client = 0; client < concurrency; client++) {
+            running.add(clients.submit(() -> {
+                for (int index = next.getAndIncrement(); index < requests; index = next.getAndIncrement()) {
+                    HttpUriRequest httpRequest = request.apply(index);
+                    long requestStart = System.nanoTime();
+                    int status = send(httpRequest);
+                    latencies[index] = System.nanoTime() - requestStart;
+                    if (status >= 500) {
+                        serverErrors.incrementAndGet();
+                    }
+                    else if (status >= 400) {
+                        clientErrors.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> client : running) {
+            client.get();
+        }
+        return new Result(scenario, latencies, System.nanoTime() - start, clientErrors.get(), serverErrors.get());
+    }
+
+    //I/O failures count as server errors
+    private int send(HttpUriRequest request) {
+        try {
+            HttpResponse response = httpClient.execute(request);
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            return 599;
+        }
+    }
+
+    private static HttpUriRequest withBody(HttpEntityEnclosingRequestBase request, String json) {
+        request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        return request;
+    }
+
+    @Override
+    public void close() throws IOException {
+        clients.shutdownNow();
+        httpClient.close();
+    }
+
+    public static final class Result {
+        public static final String HEADER = String.format("%-28s %9s %7s %7s %10s %9s %9s %9s",
+                "scenario", "requests", "4xx", "5xx", "req/s", "p50 ms", "p99 ms", "p999 ms");
+
+        private final String scenario;
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final int clientErrors;
+        private final int serverErrors;
+
+        private Result(String scenario, long[] latencies, long elapsedNanos, int clientErrors, int serverErrors) {
+            this.scenario = scenario;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(sortedLatencies);
+            this.elapsedNanos = elapsedNanos;
+            this.clientErrors = clientErrors;
+            this.serverErrors = serverErrors;
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public int getClientErrors() {
+            return clientErrors;
+        }
+
+        public int getServerErrors() {
+            return serverErrors;
+        }
+
+        public double getThroughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        //Nearest rank percentile in milliseconds
+        public double getPercentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+            return sortedLatencies[Math.max(0, rank - 1)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %9d %7d %7d %10.0f %9.2f %9.2f %9.2f", scenario, sortedLatencies.length,
+                    clientErrors, serverErrors, getThroughput(), getPercentileMillis(50),
+                    getPercentileMillis(99), getPercentileMillis(99.9));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.incidentreport.util;
+
+import com.example.incidentreport.model.IncidentStatus;
+import com.example.incidentreport.utils.TitleHash;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds users and incidents through JDBC batches for load tests. Creators are picked uniformly, closed incidents
+ * mostly go to a fifth of the users as real workloads do, new incidents have no assignee and every assigned incident
+ * has its own assignee as uk_incident_assigned_assignee requires. The same seed generates the same data
+ */
+public class PerfDataGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final double NEW_SHARE = 0.15;
+    private static final double ASSIGNED_SHARE = 0.10;
+    private static final double BUSY_USERS_SHARE = 0.8;
+
+    private static final String[] FIRST_NAMES = {"Ada", "Alan", "Grace", "Linus", "Margaret", "Dennis", "Barbara"};
+    private static final String[] LAST_NAMES = {"Lovelace", "Turing", "Hopper", "Torvalds", "Hamilton", "Ritchie"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    public PerfDataGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    public SeededData generate(int users, int incidents) {
+        List<String> userNames = new ArrayList<>(users);
+        List<Object[]> userRows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < users; i++) {
+            String userName = "perf-user-" + i;
+            userNames.add(userName);
+            userRows.add(new Object[]{i + 1L, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], userName});
+            if (userRows.size() == BATCH_SIZE || i == users - 1) {
+                jdbcTemplate.batchUpdate("insert into user_detail (user_id, first_name, last_name, user_name) " +
+                        "values (?, ?, ?, ?)", userRows);
+                userRows.clear();
+            }
+        }
+
+        Map<IncidentStatus, List<SeededIncident>> incidentsByStatus = new HashMap<>();
+        for (IncidentStatus status : IncidentStatus.values()) {
+            incidentsByStatus.put(status, new ArrayList<>());
+        }
+        List<Object[]> incidentRows = new ArrayList<>(BATCH_SIZE);
+        int assigned = 0;
+        for (int i = 0; i < incidents; i++) {
+            long incidentId = i + 1L;
+            int creator = random.nextInt(users);
+            Integer assignee = null;
+            IncidentStatus status = pickStatus();
+            if (status == IncidentStatus.ASSIGNED && assigned < users) {
+                assignee = assigned++;
+            }
+            else if (status != IncidentStatus.NEW) {
+                status = IncidentStatus.CLOSED;
+                assignee = random.nextDouble() < BUSY_USERS_SHARE ?
+                        random.nextInt(Math.max(1, users / 5)) : random.nextInt(users);
+            }
+            String title = "Seeded incident " + incidentId;
+            incidentRows.add(new Object[]{incidentId, status.getValue(), title, TitleHash.of(title),
+                    assignee == null ? null : assignee + 1L, creator + 1L});
+            incidentsByStatus.get(status).add(new SeededIncident(incidentId, userNames.get(creator)));
+            if (incidentRows.size() == BATCH_SIZE || i == incidents - 1) {
+                jdbcTemplate.batchUpdate("insert into incident (incident_id, status_id, title, title_hash, " +
+                        "assignee_id, user_id, version) values (?, ?, ?, ?, ?, ?, 0)", incidentRows);
+                incidentRows.clear();
+            }
+        }
+
+        //Ids handed out by PooledSequenceGenerator continue after the seeded rows
+        jdbcTemplate.update("update user_detail_seq set next_val = ?", users + 1L);
+        jdbcTemplate.update("update incident_seq set next_val = ?", incidents + 1L);
+        return new SeededData(userNames, incidentsByStatus);
+    }
+
+    private IncidentStatus pickStatus() {
+        double draw = random.nextDouble();
+        if (draw < NEW_SHARE) {
+            return IncidentStatus.NEW;
+        }
+        return draw < NEW_SHARE + ASSIGNED_SHARE ? IncidentStatus.ASSIGNED : IncidentStatus.CLOSED;
+    }
+
+    public static final class SeededData {
+        private final List<String> userNames;
+        private final Map<IncidentStatus, List<SeededIncident>> incidentsByStatus;
+
+        private SeededData(List<String> userNames, Map<IncidentStatus, List<SeededIncident>> incidentsByStatus) {
+            this.userNames = Collections.unmodifiableList(userNames);
+            this.incidentsByStatus = incidentsByStatus;
+        }
+
+        public List<String> getUserNames() {
+            return userNames;
+        }
+
+        public List<SeededIncident> getIncidents(IncidentStatus status) {
+            return Collections.unmodifiableList(incidentsByStatus.get(status));
+        }
+    }
+
+    public static final class SeededIncident {
+        private final long incidentId;
+        private final String creator;
+
+        private SeededIncident(long incidentId, String creator) {
+            this.incidentId = incidentId;
+            this.creator = creator;
+        }
+
+        public long getIncidentId() {
+            return incidentId;
+        }
+
+        public String getCreator() {
+            return creator;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.incidentreport.util;
+
+import com.example.incidentreport.config.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Asserts the number of SQL statements a request runs, from the statements counted by the application across all
+ * threads while the request was sent. Tests send one request at a time so no other statements are counted
+ */
+public final class SqlStatementAssert {
+
+    private SqlStatementAssert() {}
+
+    public static <T> T assertMaxStatements(SqlStatementCounter sqlStatementCounter, int maxStatements,
+                                            Supplier<T> request) {
+        long before = sqlStatementCounter.getStatementCount();
+        T response = request.get();
+        long statements = sqlStatementCounter.getStatementCount() - before;
+        assertTrue(String.format("Expected at most %d SQL statements, %d were executed", maxStatements, statements),
+                statements <= maxStatements);
+        return response;
+    }
+}
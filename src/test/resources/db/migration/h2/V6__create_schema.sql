@@ -0,0 +1,41 @@
+-- H2 counterpart of the MySQL migrations V1 to V6, later MySQL migrations need an H2 version of the same number.
+-- VARCHAR_IGNORECASE stands in for the _ci collation
+CREATE TABLE user_detail (
+    user_id    BIGINT NOT NULL,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    user_name  VARCHAR_IGNORECASE(255) NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT uk_user_detail_user_name UNIQUE (user_name)
+);
+
+CREATE TABLE incident (
+    incident_id          BIGINT NOT NULL,
+    status_id            INTEGER,
+    title                VARCHAR_IGNORECASE(255),
+    title_hash           VARBINARY(16),
+    assignee_id          BIGINT,
+    user_id              BIGINT,
+    version              BIGINT DEFAULT 0 NOT NULL,
+    assigned_assignee_id BIGINT AS (CASE WHEN status_id = 2 THEN assignee_id END),
+    PRIMARY KEY (incident_id),
+    CONSTRAINT fk_incident_assignee FOREIGN KEY (assignee_id) REFERENCES user_detail (user_id),
+    CONSTRAINT fk_incident_creator FOREIGN KEY (user_id) REFERENCES user_detail (user_id),
+    CONSTRAINT uk_incident_title_hash UNIQUE (title_hash),
+    CONSTRAINT uk_incident_assigned_assignee UNIQUE (assigned_assignee_id)
+);
+
+CREATE INDEX idx_incident_assignee_status ON incident (assignee_id, status_id);
+CREATE INDEX idx_incident_status ON incident (status_id);
+
+CREATE TABLE incident_seq (
+    next_val BIGINT
+);
+
+INSERT INTO incident_seq VALUES (1);
+
+CREATE TABLE user_detail_seq (
+    next_val BIGINT
+);
+
+INSERT INTO user_detail_seq VALUES (1);
@@ -0,0 +1,40 @@
+-- H2 counterpart of the MySQL migration V7. H2 triggers are Java, the source is compiled when the trigger is created.
+-- The embedded database has one writer process, a single counter row per table is enough
+CREATE TABLE table_change (
+    table_name VARCHAR(64) NOT NULL,
+    slot       INTEGER NOT NULL,
+    changes    BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (table_name, slot)
+);
+
+INSERT INTO table_change (table_name, slot) VALUES ('incident', 0), ('user_detail', 0);
+
+CREATE TRIGGER trg_incident_change AFTER INSERT, UPDATE, DELETE ON incident FOR EACH ROW AS
+'org.h2.api.Trigger create() {
+    return new org.h2.api.Trigger() {
+        public void init(java.sql.Connection conn, String schemaName, String triggerName, String tableName,
+                         boolean before, int type) {}
+        public void fire(java.sql.Connection conn, Object[] oldRow, Object[] newRow) throws java.sql.SQLException {
+            try (java.sql.Statement statement = conn.createStatement()) {
+                statement.executeUpdate("UPDATE table_change SET changes = changes + 1 WHERE table_name = ''incident''");
+            }
+        }
+        public void close() {}
+        public void remove() {}
+    };
+}';
+
+CREATE TRIGGER trg_user_detail_change AFTER INSERT, UPDATE, DELETE ON user_detail FOR EACH ROW AS
+'org.h2.api.Trigger create() {
+    return new org.h2.api.Trigger() {
+        public void init(java.sql.Connection conn, String schemaName, String triggerName, String tableName,
+                         boolean before, int type) {}
+        public void fire(java.sql.Connection conn, Object[] oldRow, Object[] newRow) throws java.sql.SQLException {
+            try (java.sql.Statement statement = conn.createStatement()) {
+                statement.executeUpdate("UPDATE table_change SET changes = changes + 1 WHERE table_name = ''user_detail''");
+            }
+        }
+        public void close() {}
+        public void remove() {}
+    };
+}';